@@ -16,8 +16,8 @@
 package de.odysseus.staxon.base;
 
 import java.io.IOException;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
@@ -31,27 +31,36 @@ import javax.xml.stream.XMLStreamReader;
  * Abstract XML stream reader.
  */
 public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
-	class Event {
-		private final int type;
-		private final XMLStreamReaderScope<T> scope;
-		private final String text;
-		private final Object data;
-		private final int lineNumber;
-		private final int columnNumber;
-		private final int characterOffset;
-
-		Event(int type, XMLStreamReaderScope<T> scope) {
-			this(type, scope, null, null);
-		}
+	/**
+	 * Event type reported by {@link #next()} and {@link #getEventType()} if the (non-blocking)
+	 * input ran dry before the next event could be read. Provide more input and call {@link #next()}
+	 * again. The value is the one used by Aalto's <code>AsyncXMLStreamReader.EVENT_INCOMPLETE</code>.
+	 */
+	public static final int EVENT_INCOMPLETE = 257;
 
-		Event(int type, XMLStreamReaderScope<T> scope, String text, Object data) {
+	/**
+	 * Event slot. Slots are recycled by the event queue.
+	 */
+	class Event {
+		private int type;
+		private XMLStreamReaderScope<T> scope;
+		private String text;
+		private Object data;
+		private int lineNumber;
+		private int columnNumber;
+		private int characterOffset;
+
+		Event set(int type, XMLStreamReaderScope<T> scope, String text, Object data) {
 			this.type = type;
 			this.scope = scope;
 			this.text = text;
 			this.data = data;
-			this.lineNumber = locationProvider.getLineNumber();
-			this.columnNumber = locationProvider.getColumnNumber();
-			this.characterOffset = locationProvider.getCharacterOffset();
+			if (trackLocation) {
+				this.lineNumber = locationProvider.getLineNumber();
+				this.columnNumber = locationProvider.getColumnNumber();
+				this.characterOffset = locationProvider.getCharacterOffset();
+			}
+			return this;
 		}
 
 		XMLStreamReaderScope<T> getScope() {
@@ -71,6 +80,12 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 		
 		Location getLocation() {
+			if (!trackLocation) {
+				return locationProvider;
+			}
+			final int lineNumber = this.lineNumber;
+			final int columnNumber = this.columnNumber;
+			final int characterOffset = this.characterOffset;
 			return new Location() {
 				@Override
 				public int getLineNumber() {
@@ -121,6 +136,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		case XMLStreamConstants.SPACE: return "SPACE";
 		case XMLStreamConstants.START_DOCUMENT: return "START_DOCUMENT";
 		case XMLStreamConstants.START_ELEMENT: return "START_ELEMENT";
+		case EVENT_INCOMPLETE: return "EVENT_INCOMPLETE";
 		default: return String.valueOf(type); // should not happen...
 		}
 	}
@@ -157,14 +173,37 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 	};
 
-	private final Queue<Event> queue = new LinkedList<Event>();
 	private final Location locationProvider;
+	private final boolean trackLocation;
+
+	/*
+	 * Event queue: a ring of recycled event slots. Queued events occupy the size slots starting
+	 * at head; the slot before head holds the current event and is never overwritten.
+	 */
+	private Event[] events = newEvents(8);
+	private int head = 0;
+	private int size = 0;
+
+	/*
+	 * Element scopes available for reuse, indexed by depth. A scope is recycled when its
+	 * END_ELEMENT event is no longer the current event, so no queued event refers to it.
+	 */
+	private final List<XMLStreamReaderScope<T>> recycledScopes = new ArrayList<XMLStreamReaderScope<T>>();
 
 	private XMLStreamReaderScope<T> scope;
 	private boolean moreTokens;
+	private boolean notAvailable;
+	private boolean startTagPending;
 	private Event event;
+	private Event incompleteEvent;
 	private boolean startDocumentRead;
 
+	/*
+	 * reusable buffer exposed by getTextCharacters(), valid for the current event only
+	 */
+	private char[] textCharacters;
+	private boolean textCharactersValid;
+
 	private String encodingScheme;
 	private String version;
 	private Boolean standalone;	
@@ -182,8 +221,21 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	 * @param rootInfo root scope information
 	 */
 	public AbstractXMLStreamReader(T rootInfo, Location locationProvider) {
+		this(rootInfo, locationProvider, true);
+	}
+
+	/**
+	 * Create new reader instance.
+	 * If <code>trackLocation</code> is <code>false</code>, events do not record their
+	 * location. Instead, {@link #getLocation()} answers the provider's current location.
+	 * @param rootInfo root scope information
+	 * @param locationProvider location provider
+	 * @param trackLocation whether to record event locations
+	 */
+	public AbstractXMLStreamReader(T rootInfo, Location locationProvider, boolean trackLocation) {
 		this.scope = new XMLStreamReaderScope<T>(XMLConstants.NULL_NS_URI, rootInfo);
 		this.locationProvider = locationProvider;
+		this.trackLocation = trackLocation;
 	}	
 	
 	private void ensureStartTagClosed() throws XMLStreamException {
@@ -192,6 +244,67 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private Event[] newEvents(int capacity) {
+		return (Event[]) new AbstractXMLStreamReader<?>.Event[capacity];
+	}
+
+	private void enqueue(int type, XMLStreamReaderScope<T> scope, String text, Object data) {
+		if (size == events.length - 1) { // full: keep current event slot in front, double capacity
+			Event[] grown = newEvents(2 * events.length);
+			for (int i = 0; i < events.length; i++) {
+				grown[i] = events[(head - 1 + i) & (events.length - 1)];
+			}
+			events = grown;
+			head = 1;
+		}
+		int index = (head + size) & (events.length - 1);
+		if (events[index] == null) {
+			events[index] = new Event();
+		}
+		events[index].set(type, scope, text, data);
+		size++;
+	}
+
+	private void leaveEvent() {
+		if (event != null && event.getType() == XMLStreamConstants.END_ELEMENT) {
+			recycle(event.getScope());
+		}
+		textCharactersValid = false;
+	}
+
+	private Event dequeue() {
+		leaveEvent();
+		Event result = events[head];
+		head = (head + 1) & (events.length - 1);
+		size--;
+		return result;
+	}
+
+	private void recycle(XMLStreamReaderScope<T> element) {
+		if (!element.isRetained()) {
+			int depth = element.getDepth();
+			while (recycledScopes.size() <= depth) {
+				recycledScopes.add(null);
+			}
+			recycledScopes.set(depth, element);
+		}
+	}
+
+	/**
+	 * Get the info of the scope which will be reused by the next start element (if any).
+	 * Subclasses may reset and pass it to {@link #readStartElementTag(String, String, String, Object)}
+	 * instead of creating a new instance.
+	 * @return recycled scope info or <code>null</code>
+	 */
+	protected T getRecycledScopeInfo() {
+		int depth = scope.getDepth() + 1;
+		if (depth < recycledScopes.size() && recycledScopes.get(depth) != null) {
+			return recycledScopes.get(depth).getInfo();
+		}
+		return null;
+	}
+
 	/**
 	 * @return current scope
 	 */
@@ -218,11 +331,21 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 			throw new XMLStreamException(e);
 		}
 
-		if (hasNext()) {
-			event = queue.remove();
+		if (available()) {
+			event = dequeue();
+		} else if (notAvailable) { // no input yet
+			event = incomplete();
 		} else {
-			event = new Event(XMLStreamConstants.END_DOCUMENT, scope);
+			event = new Event().set(XMLStreamConstants.END_DOCUMENT, scope, null, null);
+		}
+	}
+
+	private Event incomplete() {
+		leaveEvent();
+		if (incompleteEvent == null) {
+			incompleteEvent = new Event();
 		}
+		return incompleteEvent.set(EVENT_INCOMPLETE, scope, null, null);
 	}
 
 	/**
@@ -237,6 +360,27 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	 */
 	protected abstract boolean consume() throws XMLStreamException, IOException;
 
+	/**
+	 * Signal that input is not available for now (non-blocking input).
+	 * To be called by {@link #consume()}, which should then return <code>true</code>.
+	 * The reader will call {@link #consume()} again after more input has been provided.
+	 */
+	protected void readNotAvailable() {
+		notAvailable = true;
+	}
+
+	/**
+	 * Answer <code>true</code> if there's currently no event available, because the
+	 * (non-blocking) input ran dry. Provide more input to the underlying source and retry.
+	 * <p>If the reader has been created before any input has been available, it is
+	 * positioned on an {@link #EVENT_INCOMPLETE} event.</p>
+	 * @return <code>true</code> if more input is needed
+	 * @throws XMLStreamException
+	 */
+	public boolean needsInput() throws XMLStreamException {
+		return !available() && notAvailable;
+	}
+
 	/**
 	 * Read start document
 	 * @param version XML version
@@ -247,7 +391,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		if (startDocumentRead || !scope.isRoot()) {
 			throw new XMLStreamException("Cannot start document", locationProvider);
 		}
-		queue.add(new Event(XMLStreamConstants.START_DOCUMENT, scope));
+		enqueue(XMLStreamConstants.START_DOCUMENT, scope, null, null);
 		startDocumentRead = true;
 
 		this.version = version;
@@ -257,7 +401,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	
 	/**
 	 * Read start element.
-	 * A new scope is created and made the current scope. The provided <code>scopeInfo</code> is
+	 * A new (or recycled) scope is initialized and made the current scope. The provided <code>scopeInfo</code> is
 	 * stored in the new scope and will be available via <code>getScope().getInfo()</code>.
 	 * @param prefix element prefix (use <code>null</code> if unknown)
 	 * @param localName local name
@@ -270,9 +414,17 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 			throw new IllegalArgumentException("at least one of prefix and namespaceURI must not be null!");
 		}
 		ensureStartTagClosed();
-		scope = new XMLStreamReaderScope<T>(scope, prefix, localName, namespaceURI);
+		int depth = scope.getDepth() + 1;
+		XMLStreamReaderScope<T> element = depth < recycledScopes.size() ? recycledScopes.get(depth) : null;
+		if (element != null) {
+			recycledScopes.set(depth, null);
+			element.reset(scope, prefix, localName, namespaceURI);
+		} else {
+			element = new XMLStreamReaderScope<T>(scope, prefix, localName, namespaceURI);
+		}
+		scope = element;
 		scope.setInfo(scopeInfo);
-		queue.add(new Event(XMLStreamConstants.START_ELEMENT, scope));
+		enqueue(XMLStreamConstants.START_ELEMENT, scope, null, null);
 	}
 	
 	/**
@@ -320,7 +472,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	protected void readData(String text, Object data, int type) throws XMLStreamException {
 		if (hasData(type)) {
 			ensureStartTagClosed();
-			queue.add(new Event(type, scope, text, data));
+			enqueue(type, scope, text, data);
 		} else {
 			throw new XMLStreamException("Unexpected event type " + getEventName(), locationProvider);
 		}
@@ -335,7 +487,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	protected void readPI(String target, String data) throws XMLStreamException {
 		ensureStartTagClosed();
 		String text = data == null ? target : target + ':' + data;
-		queue.add(new Event(XMLStreamConstants.PROCESSING_INSTRUCTION, scope, text, null));
+		enqueue(XMLStreamConstants.PROCESSING_INSTRUCTION, scope, text, null);
 	}
 
 	/**
@@ -345,7 +497,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	 */
 	protected void readEndElementTag() throws XMLStreamException {
 		ensureStartTagClosed();
-		queue.add(new Event(XMLStreamConstants.END_ELEMENT, scope));
+		enqueue(XMLStreamConstants.END_ELEMENT, scope, null, null);
 		scope = scope.getParent();
 	}
 
@@ -356,7 +508,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		if (!startDocumentRead || !scope.isRoot()) {
 			throw new XMLStreamException("Cannot end document", locationProvider);
 		}
-		queue.add(new Event(XMLStreamConstants.END_DOCUMENT, scope));
+		enqueue(XMLStreamConstants.END_DOCUMENT, scope, null, null);
 		startDocumentRead = false;
 	}
 
@@ -404,27 +556,90 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 		}
 	}
 
-	@Override
-	public boolean hasNext() throws XMLStreamException {
+	/*
+	 * consume input until an event is available; answer false at the end of the document
+	 * or if the (non-blocking) input ran dry
+	 */
+	private boolean available() throws XMLStreamException {
+		notAvailable = false;
 		try {
-			while (queue.isEmpty() && moreTokens) {
+			while ((size == 0 || startTagPending) && moreTokens && !notAvailable) {
 				moreTokens = consume();
 			}
 		} catch (IOException e) {
 			throw new XMLStreamException(e.getMessage(), locationProvider, e);
 		}
-		return !queue.isEmpty();
+		// hold back start element while input is not available, attributes may follow
+		startTagPending = notAvailable && !scope.isRoot() && !scope.isStartTagClosed();
+		return size > (startTagPending ? 1 : 0);
+	}
+
+	/**
+	 * Answer <code>true</code> if there are more events. If the (non-blocking) input ran dry,
+	 * <code>true</code> is answered, too, and {@link #next()} will report {@link #EVENT_INCOMPLETE}.
+	 */
+	@Override
+	public boolean hasNext() throws XMLStreamException {
+		return available() || notAvailable;
 	}
 
+	/**
+	 * Move to the next event. If the (non-blocking) input ran dry, answer {@link #EVENT_INCOMPLETE};
+	 * provide more input and call this method again.
+	 */
 	@Override
 	public int next() throws XMLStreamException {
-		if (!hasNext()) {
+		if (available()) {
+			event = dequeue();
+		} else if (notAvailable) {
+			event = incomplete();
+		} else {
 			throw new IllegalStateException("No more events");
 		}
-		event = queue.remove();
 		return event.getType();
 	}
 
+	/**
+	 * Skip the content of the current <code>START_ELEMENT</code> event.
+	 * Afterwards, the reader is positioned at the corresponding <code>END_ELEMENT</code>
+	 * event. Events of the skipped content are not reported.
+	 * @throws XMLStreamException
+	 */
+	public void skipElement() throws XMLStreamException {
+		require(XMLStreamConstants.START_ELEMENT, null, null);
+		XMLStreamReaderScope<T> element = event.getScope();
+		while (true) {
+			while (size > 0) {
+				event = dequeue();
+				if (event.getType() == XMLStreamConstants.END_ELEMENT && event.getScope() == element) {
+					return;
+				}
+			}
+			if (!moreTokens || notAvailable) {
+				throw new XMLStreamException(notAvailable ? "Input not available" : "Unexpected end of input", locationProvider);
+			}
+			try {
+				moreTokens = skip(element);
+			} catch (IOException e) {
+				throw new XMLStreamException(e.getMessage(), locationProvider, e);
+			}
+		}
+	}
+
+	/**
+	 * Skip input inside the given element.
+	 * This method is called by {@link #skipElement()} if the element's end has not been read yet.
+	 * The default implementation simply calls {@link #consume()}; subclasses may skip their
+	 * input more efficiently, as long as the element end is read eventually.
+	 * @param element scope of the element being skipped
+	 * @return <code>true</code> if there's more to read
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 */
+	protected boolean skip(XMLStreamReaderScope<T> element) throws XMLStreamException, IOException {
+		return consume();
+	}
+
 	@Override
 	public int nextTag() throws XMLStreamException {
 		int eventType = next();
@@ -435,6 +650,9 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 				|| eventType == XMLStreamConstants.COMMENT) {
 			 eventType = next();
 		}
+		if (eventType == EVENT_INCOMPLETE) {
+			throw new XMLStreamException("Input not available", getLocation());
+		}
 		if (!isStartElement() && !isEndElement()) {
 			throw new XMLStreamException("expected start or end tag", getLocation());
 		}
@@ -444,7 +662,8 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 	@Override
 	public void close() throws XMLStreamException {
 		scope = null;
-		queue.clear();
+		size = 0;
+		recycledScopes.clear();
 	}
 
 	@Override
@@ -542,6 +761,7 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 
 	@Override
 	public NamespaceContext getNamespaceContext() {
+		event.getScope().retain(); // must survive this event
 		return event.getScope();
 	}
 
@@ -578,14 +798,25 @@ public abstract class AbstractXMLStreamReader<T> implements XMLStreamReader {
 
 	@Override
 	public char[] getTextCharacters() {
-		return hasText() ? event.getText().toCharArray() : null;
+		if (!hasText()) {
+			return null;
+		}
+		if (!textCharactersValid) {
+			String text = event.getText();
+			if (textCharacters == null || textCharacters.length < text.length()) {
+				textCharacters = new char[Math.max(text.length(), 64)];
+			}
+			text.getChars(0, text.length(), textCharacters, 0);
+			textCharactersValid = true;
+		}
+		return textCharacters;
 	}
 
 	@Override
 	public int getTextCharacters(int sourceStart, char[] target, int targetStart, int length) throws XMLStreamException {
 		int count = Math.min(length, getTextLength() - sourceStart);
 		if (count > 0) {
-			System.arraycopy(getTextCharacters(), sourceStart, target, targetStart, count);
+			event.getText().getChars(sourceStart, sourceStart + count, target, targetStart);
 		}
 		return count;
 	}
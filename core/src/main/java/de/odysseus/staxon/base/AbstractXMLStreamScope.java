@@ -16,9 +16,9 @@
 package de.odysseus.staxon.base;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 import javax.xml.XMLConstants;
@@ -30,90 +30,59 @@ import javax.xml.stream.XMLStreamException;
  * attributes, implements {@link NamespaceContext}.
  */
 public abstract class AbstractXMLStreamScope implements NamespaceContext {
-	class Attr {
-		private final String prefix;
-		private final String localName;
-		private final String namespaceURI;
-		private final String value;
-
-		Attr(String prefix, String localName, String namespaceURI, String value) {
-			this.prefix = prefix;
-			this.localName = localName;
-			this.namespaceURI = namespaceURI;
-			this.value = value;
-		}
-
-		String getPrefix() {
-			if (prefix != null) {
-				return prefix;
-			} else if (XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
-				return XMLConstants.DEFAULT_NS_PREFIX;
-			} else {
-				return AbstractXMLStreamScope.this.getNonEmptyPrefix(namespaceURI);
-			}
-		}
-		
-		String getLocalName() {
-			return localName;
-		}
-		
-		String getNamespaceURI() {
-			if (namespaceURI != null) {
-				return namespaceURI;
-			} else if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-				return XMLConstants.NULL_NS_URI;
-			} else {
-				return AbstractXMLStreamScope.this.getNamespaceURI(prefix);
-			}
-		}
+	/**
+	 * Number of prefix bindings at which a scope starts indexing its bindings by prefix.
+	 */
+	static final int BINDING_INDEX_THRESHOLD = 8;
 
-		String getValue() {
-			return value;
-		}
-		
-		void verify() throws XMLStreamException {
-			if (prefix == null) {
-				if (!XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
-					String prefix = AbstractXMLStreamScope.this.getNonEmptyPrefix(namespaceURI);
-					if (prefix == null) {
-						throw new XMLStreamException("No prefix found for attribute namespace: " + namespaceURI);
-					}
-				}
-			} else if (namespaceURI == null) {
-				if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-					String namespaceURI = AbstractXMLStreamScope.this.getNamespaceURI(prefix);
-					if (namespaceURI == null || XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
-						throw new XMLStreamException("Unbound attribute prefix: " + prefix);
-					}
-				}
-			} else {
-				if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-					if (!XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
-						throw new XMLStreamException("Illegal namespace for unprefixed attribute: " + namespaceURI);								
-					}
-				} else if (XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
-					if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-						throw new XMLStreamException("Illegal prefix for null namespace: " + prefix);
-					}
-				} else {
-					if (!AbstractXMLStreamScope.this.getNamespaceURI(prefix).equals(namespaceURI)) {
-						throw new XMLStreamException("Prefix '" + prefix +"' is not bound to: " + namespaceURI);
-					}
-				}
-			}
-		}
+	/**
+	 * Binding version, shared by all scopes of a document. Incremented whenever
+	 * a prefix is bound, which invalidates cached namespace lookups.
+	 */
+	private static final class Version {
+		int value;
 	}
 
-	private final NamespaceContext parent;
-	private final String prefix;
-	private final String localName;
-	private final String namespaceURI;
+	private NamespaceContext parent;
+	private String prefix;
+	private String localName;
+	private String namespaceURI;
+	private int depth;
 
 	private String defaultNamespace;
-	private List<Attr> attributes;
-	private List<Pair<String, String>> prefixes;
+
+	/*
+	 * attributes, stored in parallel arrays
+	 */
+	private int attributeCount;
+	private String[] attributePrefixes;
+	private String[] attributeLocalNames;
+	private String[] attributeNamespaceURIs;
+	private String[] attributeValues;
+
+	/*
+	 * prefix bindings in declaration order, stored in parallel arrays and
+	 * indexed by prefix once there are more than a few of them
+	 */
+	private int bindingCount;
+	private String[] bindingPrefixes;
+	private String[] bindingURIs;
+	private Map<String, Integer> bindingIndex;
+
+	/*
+	 * namespace lookup caches: the resolver is the nearest scope (this or an
+	 * ancestor) with own bindings or the root; it caches inherited lookups
+	 */
+	private Version version;
+	private AbstractXMLStreamScope resolver;
+	private int resolverVersion;
+	private Map<String, String> namespaceURICache;
+	private Map<String, String> nonEmptyPrefixCache;
+	private int cacheVersion;
+
 	private AbstractXMLStreamScope lastChild;
 	private boolean startTagClosed;
+	private boolean retained;
 
 	/**
 	 * Create root scope.
@@ -127,6 +96,8 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.namespaceURI = XMLConstants.NULL_NS_URI;
 		this.defaultNamespace = defaultNamespace;
 		this.startTagClosed = true;
+		this.depth = 0;
+		this.version = new Version();
 	}
 
 	/**
@@ -142,6 +113,8 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		this.namespaceURI = XMLConstants.NULL_NS_URI;
 		this.defaultNamespace = parent.getNamespaceURI(XMLConstants.NULL_NS_URI);
 		this.startTagClosed = true;
+		this.depth = 0;
+		this.version = new Version();
 	}
 
 	/**
@@ -152,26 +125,162 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 	 * @param localName
 	 */
 	public AbstractXMLStreamScope(AbstractXMLStreamScope parent, String prefix, String localName, String namespaceURI) {
+		initElement(parent, prefix, localName, namespaceURI);
+	}
+
+	private void initElement(AbstractXMLStreamScope parent, String prefix, String localName, String namespaceURI) {
 		this.parent = parent;
 		this.prefix = prefix;
 		this.localName = localName;
 		this.namespaceURI = namespaceURI;
 		this.startTagClosed = false;		
 		this.defaultNamespace = parent.getNamespaceURI(XMLConstants.NULL_NS_URI);
+		this.depth = parent.depth + 1;
+		this.version = parent.version;
 
 		parent.lastChild = this;
 		parent.startTagClosed = true;
 	}
 
+	/**
+	 * Re-initialize an element scope for reuse as a new element scope.
+	 * Attributes, bindings and cached lookups are dropped.
+	 */
+	void reset(AbstractXMLStreamScope parent, String prefix, String localName, String namespaceURI) {
+		if (retained) {
+			throw new IllegalStateException("Cannot reset retained scope");
+		}
+		if (attributeCount > 0) {
+			Arrays.fill(attributePrefixes, 0, attributeCount, null);
+			Arrays.fill(attributeLocalNames, 0, attributeCount, null);
+			Arrays.fill(attributeNamespaceURIs, 0, attributeCount, null);
+			Arrays.fill(attributeValues, 0, attributeCount, null);
+			attributeCount = 0;
+		}
+		if (bindingCount > 0) {
+			Arrays.fill(bindingPrefixes, 0, bindingCount, null);
+			Arrays.fill(bindingURIs, 0, bindingCount, null);
+			bindingCount = 0;
+			bindingIndex = null;
+		}
+		if (namespaceURICache != null) {
+			namespaceURICache.clear();
+		}
+		if (nonEmptyPrefixCache != null) {
+			nonEmptyPrefixCache.clear();
+		}
+		resolver = null;
+		lastChild = null;
+		initElement(parent, prefix, localName, namespaceURI);
+		cacheVersion = version.value;
+	}
+
+	/**
+	 * Mark this scope and its ancestors as referenced from outside the reader/writer,
+	 * which excludes them from being reused.
+	 */
+	void retain() {
+		AbstractXMLStreamScope scope = this;
+		while (scope != null && !scope.retained) {
+			scope.retained = true;
+			scope = scope.getParent();
+		}
+	}
+
+	boolean isRetained() {
+		return retained;
+	}
+
 	void addAttribute(String prefix, String localName, String namespaceURI, String value) {
-		if (attributes == null) {
-			attributes = new LinkedList<Attr>();
+		if (attributeValues == null) {
+			attributePrefixes = new String[4];
+			attributeLocalNames = new String[4];
+			attributeNamespaceURIs = new String[4];
+			attributeValues = new String[4];
+		} else if (attributeCount == attributeValues.length) {
+			int capacity = 2 * attributeCount;
+			attributePrefixes = Arrays.copyOf(attributePrefixes, capacity);
+			attributeLocalNames = Arrays.copyOf(attributeLocalNames, capacity);
+			attributeNamespaceURIs = Arrays.copyOf(attributeNamespaceURIs, capacity);
+			attributeValues = Arrays.copyOf(attributeValues, capacity);
 		}
-		attributes.add(new Attr(prefix, localName, namespaceURI, value));
+		attributePrefixes[attributeCount] = prefix;
+		attributeLocalNames[attributeCount] = localName;
+		attributeNamespaceURIs[attributeCount] = namespaceURI;
+		attributeValues[attributeCount] = value;
+		attributeCount++;
 	}
-	
-	List<Attr> getAttributes() {
-		return attributes;
+
+	public int getAttributeCount() {
+		return attributeCount;
+	}
+
+	String getAttributePrefix(int index) {
+		String prefix = attributePrefixes[checkAttributeIndex(index)];
+		String namespaceURI = attributeNamespaceURIs[index];
+		if (prefix != null) {
+			return prefix;
+		} else if (XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
+			return XMLConstants.DEFAULT_NS_PREFIX;
+		} else {
+			return getNonEmptyPrefix(namespaceURI);
+		}
+	}
+
+	String getAttributeLocalName(int index) {
+		return attributeLocalNames[checkAttributeIndex(index)];
+	}
+
+	String getAttributeNamespaceURI(int index) {
+		String prefix = attributePrefixes[checkAttributeIndex(index)];
+		String namespaceURI = attributeNamespaceURIs[index];
+		if (namespaceURI != null) {
+			return namespaceURI;
+		} else if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+			return XMLConstants.NULL_NS_URI;
+		} else {
+			return getNamespaceURI(prefix);
+		}
+	}
+
+	public String getAttributeValue(int index) {
+		return attributeValues[checkAttributeIndex(index)];
+	}
+
+	private int checkAttributeIndex(int index) {
+		if (index < 0 || index >= attributeCount) {
+			throw new IndexOutOfBoundsException("Attribute index: " + index + ", count: " + attributeCount);
+		}
+		return index;
+	}
+
+	private void verifyAttribute(int index) throws XMLStreamException {
+		String prefix = attributePrefixes[index];
+		String namespaceURI = attributeNamespaceURIs[index];
+		if (prefix == null) {
+			if (!XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
+				if (getNonEmptyPrefix(namespaceURI) == null) {
+					throw new XMLStreamException("No prefix found for attribute namespace: " + namespaceURI);
+				}
+			}
+		} else if (namespaceURI == null) {
+			if (!XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+				String boundURI = getNamespaceURI(prefix);
+				if (boundURI == null || XMLConstants.NULL_NS_URI.equals(boundURI)) {
+					throw new XMLStreamException("Unbound attribute prefix: " + prefix);
+				}
+			}
+		} else {
+			if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+				if (!XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
+					throw new XMLStreamException("Illegal namespace for unprefixed attribute: " + namespaceURI);								
+				}
+			} else if (XMLConstants.NULL_NS_URI.equals(namespaceURI)) {
+				throw new XMLStreamException("Illegal prefix for null namespace: " + prefix);
+			} else if (!getNamespaceURI(prefix).equals(namespaceURI)) {
+				throw new XMLStreamException("Prefix '" + prefix +"' is not bound to: " + namespaceURI);
+			}
+		}
 	}
 	
 	public String getPrefix() {
@@ -190,6 +299,13 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		return localName == null;
 	}
 
+	/**
+	 * @return element nesting depth (<code>0</code> for the root scope)
+	 */
+	public int getDepth() {
+		return depth;
+	}
+
 	public AbstractXMLStreamScope getParent() {
 		return isRoot() ? null : (AbstractXMLStreamScope)parent;
 	}
@@ -222,10 +338,8 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 				}
 			}
 		}
-		if (attributes != null) {
-			for (Attr attribute : attributes) {
-				attribute.verify();
-			}
+		for (int i = 0; i < attributeCount; i++) {
+			verifyAttribute(i);
 		}
 	}
 
@@ -237,12 +351,10 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 	}
 
 	private String findNonEmptyPrefix(String namespaceURI, AbstractXMLStreamScope descendent) {
-		if (prefixes != null) {
-			for (Pair<String, String> pair : prefixes) {
-				if (pair.getSecond().equals(namespaceURI)) {
-					if (descendent == this || descendent.getNamespaceURI(pair.getFirst()).equals(namespaceURI)) {
-						return pair.getFirst();
-					}
+		for (int i = 0; i < bindingCount; i++) {
+			if (bindingURIs[i].equals(namespaceURI)) {
+				if (descendent == this || descendent.getNamespaceURI(bindingPrefixes[i]).equals(namespaceURI)) {
+					return bindingPrefixes[i];
 				}
 			}
 		}
@@ -274,7 +386,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI)) {
 			return XMLConstants.XMLNS_ATTRIBUTE;
 		} else {
-			return findNonEmptyPrefix(namespaceURI, this);
+			return resolver().resolveNonEmptyPrefix(namespaceURI);
 		}
 	}
 
@@ -300,20 +412,119 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(namespaceURI)) {
 			throw new IllegalArgumentException("Cannot bind to prefix: " + prefix);
 		} else {
-			if (prefixes == null) {
-				prefixes = new LinkedList<Pair<String, String>>();
-			} else {
-				Iterator<Pair<String, String>> iterator = prefixes.iterator();
-				while (iterator.hasNext()) {
-					if (iterator.next().getFirst().equals(prefix)) {
-						iterator.remove();
+			int index = findBinding(prefix);
+			if (index >= 0) { // rebind: move to end
+				bindingCount--;
+				System.arraycopy(bindingPrefixes, index + 1, bindingPrefixes, index, bindingCount - index);
+				System.arraycopy(bindingURIs, index + 1, bindingURIs, index, bindingCount - index);
+				if (bindingIndex != null) {
+					for (int i = index; i < bindingCount; i++) {
+						bindingIndex.put(bindingPrefixes[i], i);
 					}
 				}
 			}
-			prefixes.add(new Pair<String, String>(prefix, namespaceURI));
+			if (bindingPrefixes == null) {
+				bindingPrefixes = new String[4];
+				bindingURIs = new String[4];
+			} else if (bindingCount == bindingPrefixes.length) {
+				bindingPrefixes = Arrays.copyOf(bindingPrefixes, 2 * bindingCount);
+				bindingURIs = Arrays.copyOf(bindingURIs, 2 * bindingCount);
+			}
+			bindingPrefixes[bindingCount] = prefix;
+			bindingURIs[bindingCount] = namespaceURI;
+			if (bindingIndex != null) {
+				bindingIndex.put(prefix, bindingCount);
+			} else if (bindingCount + 1 == BINDING_INDEX_THRESHOLD) {
+				bindingIndex = new HashMap<String, Integer>(2 * BINDING_INDEX_THRESHOLD);
+				for (int i = 0; i <= bindingCount; i++) {
+					bindingIndex.put(bindingPrefixes[i], i);
+				}
+			}
+			bindingCount++;
+			version.value++;
 		}
 	}
 
+	/*
+	 * nearest scope with own bindings (or the root), valid until the next binding
+	 */
+	private AbstractXMLStreamScope resolver() {
+		if (resolver == null || resolverVersion != version.value) {
+			resolver = bindingCount > 0 || isRoot() ? this : getParent().resolver();
+			resolverVersion = version.value;
+		}
+		return resolver;
+	}
+
+	/*
+	 * clear lookup caches if bindings have changed since they were filled
+	 */
+	private void validateCaches() {
+		if (cacheVersion != version.value) {
+			if (namespaceURICache != null) {
+				namespaceURICache.clear();
+			}
+			if (nonEmptyPrefixCache != null) {
+				nonEmptyPrefixCache.clear();
+			}
+			cacheVersion = version.value;
+		}
+	}
+
+	/*
+	 * lookup namespace URI in resolver scope; inherited bindings are cached
+	 */
+	private String resolveNamespaceURI(String prefix) {
+		int index = findBinding(prefix);
+		if (index >= 0) {
+			return bindingURIs[index];
+		}
+		if (isRoot()) {
+			return parent == null ? XMLConstants.NULL_NS_URI : parent.getNamespaceURI(prefix);
+		}
+		validateCaches();
+		if (namespaceURICache == null) {
+			namespaceURICache = new HashMap<String, String>();
+		}
+		String result = namespaceURICache.get(prefix);
+		if (result == null) {
+			result = getParent().getNamespaceURI(prefix);
+			namespaceURICache.put(prefix, result);
+		}
+		return result;
+	}
+
+	/*
+	 * lookup non-empty prefix in resolver scope, caching results
+	 */
+	private String resolveNonEmptyPrefix(String namespaceURI) {
+		validateCaches();
+		if (nonEmptyPrefixCache == null) {
+			nonEmptyPrefixCache = new HashMap<String, String>();
+		} else if (nonEmptyPrefixCache.containsKey(namespaceURI)) {
+			return nonEmptyPrefixCache.get(namespaceURI);
+		}
+		String result = findNonEmptyPrefix(namespaceURI, this);
+		nonEmptyPrefixCache.put(namespaceURI, result);
+		return result;
+	}
+
+	/*
+	 * lookup binding index of given prefix in this scope, -1 if not bound here
+	 */
+	private int findBinding(String prefix) {
+		if (bindingIndex != null) {
+			Integer index = bindingIndex.get(prefix);
+			return index == null ? -1 : index.intValue();
+		}
+		for (int i = 0; i < bindingCount; i++) {
+			if (bindingPrefixes[i].equals(prefix)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
 	@Override
 	public Iterator<String> getPrefixes(final String namespaceURI) {
 		if (namespaceURI == null) {
@@ -326,7 +537,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 			return new Iterator<String>() {
 				int state = 0;
 				String next = null;
-				Iterator<Pair<String, String>> pairs;
+				int binding = 0;
 				Iterator<?> above;
 
 				private String next0() {
@@ -336,16 +547,11 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 							return XMLConstants.DEFAULT_NS_PREFIX;
 						}
 					}
-					if (state == 1) { // check pairs
-						if (prefixes != null) {
-							if (pairs == null) {
-								pairs = prefixes.iterator();
-							}
-							while (pairs.hasNext()) {
-								Pair<String, String> pair = pairs.next();
-								if (namespaceURI.equals(pair.getSecond())) {
-									return pair.getFirst();
-								}
+					if (state == 1) { // check bindings
+						while (binding < bindingCount) {
+							int index = binding++;
+							if (namespaceURI.equals(bindingURIs[index])) {
+								return bindingPrefixes[index];
 							}
 						}
 						state = 2;
@@ -407,14 +613,7 @@ public abstract class AbstractXMLStreamScope implements NamespaceContext {
 		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
 			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
 		} else {
-			if (prefixes != null) {
-				for (Pair<String, String> pair : prefixes) {
-					if (pair.getFirst().equals(prefix)) {
-						return pair.getSecond();
-					}
-				}
-			}
-			return parent == null ? XMLConstants.NULL_NS_URI : parent.getNamespaceURI(prefix);
+			return resolver().resolveNamespaceURI(prefix);
 		}
 	}
 }
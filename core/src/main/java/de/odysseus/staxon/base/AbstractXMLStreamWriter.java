@@ -15,7 +15,9 @@
  */
 package de.odysseus.staxon.base;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.xml.XMLConstants;
@@ -29,6 +31,7 @@ import javax.xml.stream.XMLStreamWriter;
  */
 public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 	private final Map<String, String> repairingNamespaces;
+	private final List<XMLStreamWriterScope<T>> recycledScopes = new ArrayList<XMLStreamWriterScope<T>>(); // indexed by depth
 	private XMLStreamWriterScope<T> scope;
 	private boolean startDocumentWritten;
 
@@ -66,7 +69,7 @@ public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 			writeStartElementTagEnd();
 			scope.setStartTagClosed(true);
 			if (scope.isEmptyElement()) {
-				scope = scope.getParent();
+				popScope();
 			}
 		}
 	}
@@ -97,13 +100,50 @@ public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 		}
 		ensureStartTagClosed();
 		T scopeInfo = writeStartElementTag(prefix, localPart, namespaceURI);
-		scope = new XMLStreamWriterScope<T>(scope, prefix, localPart, namespaceURI, emptyElement);
+		int depth = scope.getDepth() + 1;
+		XMLStreamWriterScope<T> element = depth < recycledScopes.size() ? recycledScopes.get(depth) : null;
+		if (element != null) {
+			recycledScopes.set(depth, null);
+			element.reset(scope, prefix, localPart, namespaceURI, emptyElement);
+		} else {
+			element = new XMLStreamWriterScope<T>(scope, prefix, localPart, namespaceURI, emptyElement);
+		}
+		scope = element;
 		scope.setInfo(scopeInfo);
 		if (writeNamespace) {
 			writeNamespace(prefix, namespaceURI);
 		}
 	}
 
+	/*
+	 * make the parent scope current, keeping the element scope for reuse
+	 */
+	private void popScope() {
+		XMLStreamWriterScope<T> element = scope;
+		scope = scope.getParent();
+		if (!element.isRetained()) {
+			int depth = element.getDepth();
+			while (recycledScopes.size() <= depth) {
+				recycledScopes.add(null);
+			}
+			recycledScopes.set(depth, element);
+		}
+	}
+
+	/**
+	 * Get the info of the scope which will be reused by the next start element (if any).
+	 * Subclasses may reset and return it from {@link #writeStartElementTag(String, String, String)}
+	 * instead of creating a new instance.
+	 * @return recycled scope info or <code>null</code>
+	 */
+	protected T getRecycledScopeInfo() {
+		int depth = scope.getDepth() + 1;
+		if (depth < recycledScopes.size() && recycledScopes.get(depth) != null) {
+			return recycledScopes.get(depth).getInfo();
+		}
+		return null;
+	}
+
 	/**
 	 * @return current scope
 	 */
@@ -215,7 +255,7 @@ public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 			throw new XMLStreamException("Cannot write end element in root scope");
 		}
 		writeEndElementTag();
-		scope = scope.getParent();
+		popScope();
 	}
 
 	@Override
@@ -392,6 +432,7 @@ public abstract class AbstractXMLStreamWriter<T> implements XMLStreamWriter {
 
 	@Override
 	public NamespaceContext getNamespaceContext() {
+		scope.retain(); // may be used after the element has been ended
 		return scope;
 	}
 
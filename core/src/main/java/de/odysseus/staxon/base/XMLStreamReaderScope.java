@@ -15,14 +15,16 @@
  */
 package de.odysseus.staxon.base;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 
 public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
-	private List<Pair<String, String>> declarations;
+	private int declarationCount;
+	private String[] declarationPrefixes;
+	private String[] declarationURIs;
+	private QName[] attributeNames;
 	private T info;
 
 	public XMLStreamReaderScope(String defaultNamespace, T info) {
@@ -39,6 +41,18 @@ public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
 		super(parent, prefix, localName, namespaceURI);
 	}
 
+	void reset(XMLStreamReaderScope<T> parent, String prefix, String localName, String namespaceURI) {
+		super.reset(parent, prefix, localName, namespaceURI);
+		if (declarationCount > 0) {
+			Arrays.fill(declarationPrefixes, 0, declarationCount, null);
+			Arrays.fill(declarationURIs, 0, declarationCount, null);
+			declarationCount = 0;
+		}
+		if (attributeNames != null) {
+			Arrays.fill(attributeNames, null);
+		}
+	}
+
 	public T getInfo() {
 		return info;
 	}
@@ -54,44 +68,50 @@ public class XMLStreamReaderScope<T> extends AbstractXMLStreamScope {
 	}
 
 	public int getNamespaceCount() {
-		return declarations == null ? 0 : declarations.size();
+		return declarationCount;
 	}
 
 	public String getNamespacePrefix(int index) {
-		return declarations == null ? null : declarations.get(index).getFirst();
+		return index < declarationCount ? declarationPrefixes[index] : null;
 	}
 
 	public String getNamespaceURI(int index) {
-		return declarations == null ? null : declarations.get(index).getSecond();
+		return index < declarationCount ? declarationURIs[index] : null;
 	}
 
 	void addNamespaceURI(String prefix, String namespaceURI) {
-		if (declarations == null) {
-			declarations = new LinkedList<Pair<String, String>>();
+		if (declarationPrefixes == null) {
+			declarationPrefixes = new String[4];
+			declarationURIs = new String[4];
+		} else if (declarationCount == declarationPrefixes.length) {
+			declarationPrefixes = Arrays.copyOf(declarationPrefixes, 2 * declarationCount);
+			declarationURIs = Arrays.copyOf(declarationURIs, 2 * declarationCount);
 		}
-		declarations.add(new Pair<String, String>(prefix, namespaceURI));
-	}
-
-	public int getAttributeCount() {
-		return getAttributes() == null ? 0 : getAttributes().size();
+		declarationPrefixes[declarationCount] = prefix;
+		declarationURIs[declarationCount] = namespaceURI;
+		declarationCount++;
 	}
 
+	/**
+	 * Get attribute name. Names are created on first access and cached.
+	 */
 	public QName getAttributeName(int index) {
-		Attr attribute = getAttributes().get(index);
-		return new QName(attribute.getNamespaceURI(), attribute.getLocalName(), attribute.getPrefix());
-	}
-
-	public String getAttributeValue(int index) {
-		return getAttributes().get(index).getValue();
+		if (attributeNames == null || attributeNames.length < getAttributeCount()) {
+			attributeNames = attributeNames == null ? new QName[getAttributeCount()] : Arrays.copyOf(attributeNames, getAttributeCount());
+		}
+		QName name = attributeNames[index];
+		if (name == null) {
+			name = new QName(getAttributeNamespaceURI(index), getAttributeLocalName(index), getAttributePrefix(index));
+			attributeNames[index] = name;
+		}
+		return name;
 	}
 
 	public String getAttributeValue(String namespaceURI, String localName) {
-		if (getAttributes() != null) {
-			for (Attr attribute : getAttributes()) {
-				if (localName.equals(attribute.getLocalName())) {
-					if (namespaceURI == null || namespaceURI.equals(attribute.getNamespaceURI())) {
-						return attribute.getValue();
-					}
+		for (int i = 0, count = getAttributeCount(); i < count; i++) {
+			if (localName.equals(getAttributeLocalName(i))) {
+				if (namespaceURI == null || namespaceURI.equals(getAttributeNamespaceURI(i))) {
+					return getAttributeValue(i);
 				}
 			}
 		}
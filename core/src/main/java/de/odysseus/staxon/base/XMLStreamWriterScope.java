@@ -18,7 +18,7 @@ package de.odysseus.staxon.base;
 import javax.xml.namespace.NamespaceContext;
 
 public class XMLStreamWriterScope<T> extends AbstractXMLStreamScope {
-	private final boolean emptyElement;
+	private boolean emptyElement;
 
 	private T info;
 
@@ -39,6 +39,11 @@ public class XMLStreamWriterScope<T> extends AbstractXMLStreamScope {
 		this.emptyElement = emptyElement;
 	}
 
+	void reset(XMLStreamWriterScope<T> parent, String prefix, String localName, String namespaceURI, boolean emptyElement) {
+		super.reset(parent, prefix, localName, namespaceURI);
+		this.emptyElement = emptyElement;
+	}
+
 	public T getInfo() {
 		return info;
 	}
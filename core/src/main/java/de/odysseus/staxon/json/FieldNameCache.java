@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.xml.XMLConstants;
+
+/**
+ * Bounded cache of JSON field names for prefixed element and attribute names,
+ * shared by the writers of an output factory.
+ * Once the cache is full, new names are no longer added but created on every lookup.
+ */
+final class FieldNameCache {
+	/**
+	 * Maximum number of field names cached by an output factory.
+	 */
+	static final int MAX_SIZE = 4096;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, String>> elementNames = new ConcurrentHashMap<String, ConcurrentMap<String, String>>();
+	private final ConcurrentMap<String, ConcurrentMap<String, String>> attributeNames = new ConcurrentHashMap<String, ConcurrentMap<String, String>>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final int maxSize;
+	private final char namespaceSeparator;
+	private final String attributePrefix;
+
+	/**
+	 * Create cache.
+	 * @param maxSize maximum number of names (<code>0</code> disables caching)
+	 * @param namespaceSeparator namespace prefix separator
+	 * @param attributePrefix attribute prefix
+	 */
+	FieldNameCache(int maxSize, char namespaceSeparator, String attributePrefix) {
+		this.maxSize = maxSize;
+		this.namespaceSeparator = namespaceSeparator;
+		this.attributePrefix = attributePrefix;
+	}
+
+	/**
+	 * @return <code>true</code> if this cache creates names for the given separator and prefix
+	 */
+	boolean matches(char namespaceSeparator, String attributePrefix) {
+		return this.namespaceSeparator == namespaceSeparator && this.attributePrefix.equals(attributePrefix);
+	}
+
+	private String getName(ConcurrentMap<String, ConcurrentMap<String, String>> cache, String lead, String prefix, String localName) {
+		ConcurrentMap<String, String> names = cache.get(prefix);
+		String name = names == null ? null : names.get(localName);
+		if (name == null) {
+			if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
+				name = lead + localName;
+			} else {
+				name = lead + prefix + namespaceSeparator + localName;
+			}
+			if (size.get() < maxSize) {
+				if (names == null) {
+					names = new ConcurrentHashMap<String, String>();
+					ConcurrentMap<String, String> existing = cache.putIfAbsent(prefix, names);
+					if (existing != null) {
+						names = existing;
+					}
+				}
+				if (names.putIfAbsent(localName, name) == null) {
+					size.incrementAndGet();
+				}
+			}
+		}
+		return name;
+	}
+
+	/**
+	 * Answer <code>prefix + namespaceSeparator + localName</code>
+	 * (just <code>localName</code> for the default prefix).
+	 */
+	String getElementName(String prefix, String localName) {
+		return XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? localName : getName(elementNames, "", prefix, localName);
+	}
+
+	/**
+	 * Answer <code>attributePrefix + prefix + namespaceSeparator + localName</code>
+	 * (prefix and separator omitted for the default prefix).
+	 */
+	String getAttributeName(String prefix, String localName) {
+		return getName(attributeNames, attributePrefix, prefix, localName);
+	}
+
+	/**
+	 * @return number of cached names
+	 */
+	int size() {
+		return size.get();
+	}
+}
@@ -184,4 +184,14 @@ public class JsonXMLConfigBuilder {
 		config.setAttributePrefix(attributePrefix);
 		return this;
 	}
+
+	/**
+	 * Set maxDepth property and return receiver.
+	 * @param maxDepth (maximum element nesting depth)
+	 * @return this
+	 */
+	public JsonXMLConfigBuilder maxDepth(int maxDepth) {
+		config.setMaxDepth(maxDepth);
+		return this;
+	}
 }
@@ -26,6 +26,11 @@ import javax.xml.namespace.QName;
  * @see JsonXMLConfig
  */
 public class JsonXMLConfigImpl implements JsonXMLConfig, Cloneable {
+	/**
+	 * Default maximum element nesting depth.
+	 */
+	public static final int DEFAULT_MAX_DEPTH = 1000;
+
 	private QName virtualRoot = JsonXMLConfig.DEFAULT.getVirtualRoot();
 	private boolean multiplePI = JsonXMLConfig.DEFAULT.isMultiplePI();
 	private boolean prettyPrint = JsonXMLConfig.DEFAULT.isPrettyPrint();
@@ -37,6 +42,7 @@ public class JsonXMLConfigImpl implements JsonXMLConfig, Cloneable {
 	private boolean repairingNamespaces = JsonXMLConfig.DEFAULT.isRepairingNamespaces();
 	private String textProperty = JsonXMLConfig.DEFAULT.getTextProperty();
 	private String attributePrefix = JsonXMLConfig.DEFAULT.getAttributePrefix();
+	private int maxDepth = DEFAULT_MAX_DEPTH;
 	
 	@Override
 	protected JsonXMLConfigImpl clone() {
@@ -145,4 +151,21 @@ public class JsonXMLConfigImpl implements JsonXMLConfig, Cloneable {
 	public void setAttributePrefix(String attributePrefix) {
 		this.attributePrefix = attributePrefix;
 	}
+
+	/**
+	 * <p>Maximum element nesting depth. Deeper documents are rejected
+	 * when reading and writing.</p>
+	 * <p>Not part of {@link JsonXMLConfig}; factories created from other
+	 * configurations use {@link #DEFAULT_MAX_DEPTH}.</p>
+	 * @see JsonXMLInputFactory#PROP_MAX_DEPTH
+	 * @see JsonXMLOutputFactory#PROP_MAX_DEPTH
+	 * @return maximum depth
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public void setMaxDepth(int maxDepth) {
+		this.maxDepth = maxDepth;
+	}
 }
@@ -37,6 +37,7 @@ import de.odysseus.staxon.event.SimpleXMLEventReader;
 import de.odysseus.staxon.event.SimpleXMLFilteredEventReader;
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.impl.NamePartsCache;
 import de.odysseus.staxon.json.stream.util.AddRootSource;
 
 /**
@@ -95,6 +96,32 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 	 */
 	public static final String PROP_ATTRIBUTE_PREFIX = "JsonXMLOutputFactory.attributePrefix";
 
+	/**
+	 * <p>Maximum element nesting depth. Deeper documents are rejected.</p>
+	 * 
+	 * <p>The default is <code>1000</code></p>
+	 */
+	public static final String PROP_MAX_DEPTH = "JsonXMLInputFactory.maxDepth";
+
+	/**
+	 * <p>Whether to track locations. If <code>false</code>, line and column numbers are
+	 * not maintained and locations are only available as the current stream position
+	 * (e.g. when reporting errors).</p>
+	 * 
+	 * <p>The default is <code>true</code></p>
+	 */
+	public static final String PROP_TRACK_LOCATION = "JsonXMLInputFactory.trackLocation";
+
+	/**
+	 * <p>Approximate length of text chunks. If {@link #IS_COALESCING} is <code>false</code>,
+	 * long string values are reported as several consecutive <code>CHARACTERS</code> events
+	 * of about this length, so they don't have to be held in memory at once.
+	 * Attribute values are not split.</p>
+	 * 
+	 * <p>The default is <code>8192</code></p>
+	 */
+	public static final String PROP_TEXT_CHUNK_SIZE = "JsonXMLInputFactory.textChunkSize";
+
 	private final JsonStreamFactory streamFactory;
 
 	private boolean multiplePI;
@@ -103,6 +130,9 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 	private Map<String, String> namespaceMappings;
 	private String textProperty;
 	private String attributePrefix;
+	private int maxDepth;
+	private boolean trackLocation = true;
+	private int textChunkSize = 8192;
 
 	public JsonXMLInputFactory() throws FactoryConfigurationError {
 		this(JsonXMLConfig.DEFAULT);
@@ -123,6 +153,7 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 		this.namespaceMappings = config.getNamespaceMappings();
 		this.textProperty = config.getTextProperty();
 		this.attributePrefix = config.getAttributePrefix();
+		this.maxDepth = config instanceof JsonXMLConfigImpl ? ((JsonXMLConfigImpl) config).getMaxDepth() : JsonXMLConfigImpl.DEFAULT_MAX_DEPTH;
 		this.streamFactory = streamFactory;
 		
 		/*
@@ -142,6 +173,10 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 		}
 		return source;
 	}
+
+	private NamePartsCache nameParts() {
+		return streamFactory instanceof NamePartsCache ? (NamePartsCache) streamFactory : null;
+	}
 	
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(InputStream stream, String encoding) throws XMLStreamException {
@@ -162,10 +197,17 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 		return createXMLStreamReader(reader);
 	}
 
+	/*
+	 * chunk size passed to the stream factory (0 if coalescing)
+	 */
+	private int chunkSize() {
+		return Boolean.FALSE.equals(getProperty(IS_COALESCING)) ? textChunkSize : 0;
+	}
+
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(Reader reader) throws XMLStreamException {
 		try {
-			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(reader)), multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix);
+			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(reader, trackLocation, chunkSize())), nameParts(), multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, maxDepth, trackLocation);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -174,12 +216,24 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 	@Override
 	public JsonXMLStreamReader createXMLStreamReader(InputStream stream) throws XMLStreamException {
 		try {
-			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(stream)), multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix);
+			return new JsonXMLStreamReader(decorate(streamFactory.createJsonStreamSource(stream, trackLocation, chunkSize())), nameParts(), multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, maxDepth, trackLocation);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
 	}
 
+	/**
+	 * Create reader for the given stream source, e.g. a
+	 * {@link de.odysseus.staxon.json.stream.NonBlockingJsonStreamSource} created by
+	 * {@link JsonStreamFactory#createNonBlockingJsonStreamSource()}.
+	 * @param source stream source
+	 * @return reader
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamReader createXMLStreamReader(JsonStreamSource source) throws XMLStreamException {
+		return new JsonXMLStreamReader(decorate(source), nameParts(), multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, maxDepth, trackLocation);
+	}
+
 	@Override
 	public XMLEventReader createXMLEventReader(XMLStreamReader reader) throws XMLStreamException {
 		if (getEventAllocator() == null) {
@@ -207,7 +261,7 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 	@Override
 	public boolean isPropertySupported(String name) {
 		return super.isPropertySupported(name)
-			|| Arrays.asList(PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_MAPPINGS, PROP_TEXT_PROPERTY, PROP_ATTRIBUTE_PREFIX).contains(name);
+			|| Arrays.asList(PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_MAPPINGS, PROP_TEXT_PROPERTY, PROP_ATTRIBUTE_PREFIX, PROP_MAX_DEPTH, PROP_TRACK_LOCATION, PROP_TEXT_CHUNK_SIZE).contains(name);
 	}
 
 	@Override
@@ -227,6 +281,12 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 				return textProperty;
 			} else if (PROP_ATTRIBUTE_PREFIX.equals(name)) {
 				return attributePrefix;
+			} else if (PROP_MAX_DEPTH.equals(name)) {
+				return Integer.valueOf(maxDepth);
+			} else if (PROP_TRACK_LOCATION.equals(name)) {
+				return Boolean.valueOf(trackLocation);
+			} else if (PROP_TEXT_CHUNK_SIZE.equals(name)) {
+				return Integer.valueOf(textChunkSize);
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -272,6 +332,12 @@ public class JsonXMLInputFactory extends AbstractXMLInputFactory {
 				this.textProperty = (String)value;
 			} else if (PROP_ATTRIBUTE_PREFIX.equals(name)) {
 				this.attributePrefix = (String)value;
+			} else if (PROP_MAX_DEPTH.equals(name)) {
+				this.maxDepth = (Integer)value;
+			} else if (PROP_TRACK_LOCATION.equals(name)) {
+				this.trackLocation = ((Boolean)value).booleanValue();
+			} else if (PROP_TEXT_CHUNK_SIZE.equals(name)) {
+				this.textChunkSize = (Integer)value;
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -35,6 +35,7 @@ import de.odysseus.staxon.base.AbstractXMLOutputFactory;
 import de.odysseus.staxon.event.SimpleXMLEventWriter;
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.util.AutoArrayPaths;
 import de.odysseus.staxon.json.stream.util.AutoArrayTarget;
 import de.odysseus.staxon.json.stream.util.AutoPrimitiveTarget;
 import de.odysseus.staxon.json.stream.util.RemoveRootTarget;
@@ -49,6 +50,22 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	 * <p>The default value is <code>false</code>.</p>
 	 */
 	public static final String PROP_AUTO_ARRAY = "JsonXMLOutputFactory.autoArray";
+
+	/**
+	 * <p>Array paths ({@link AutoArrayPaths}) shared by writers in auto-array mode.
+	 * Fields with known paths are written without buffering.</p>
+	 * 
+	 * <p>The default value is <code>null</code> (buffer until array boundaries are known).</p>
+	 */
+	public static final String PROP_AUTO_ARRAY_PATHS = "JsonXMLOutputFactory.autoArrayPaths";
+
+	/**
+	 * <p>Estimated size in bytes of events cached in auto-array mode, beyond which
+	 * they are moved to a temporary file.</p>
+	 * 
+	 * <p>The default value is <code>0</code> (keep all events in memory).</p>
+	 */
+	public static final String PROP_AUTO_ARRAY_SPILL_THRESHOLD = "JsonXMLOutputFactory.autoArraySpillThreshold";
 	
 	/**
 	 * <p>Convert element text to JSON primitives (number, boolean, null) automatically?</p>
@@ -124,10 +141,19 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	 */
 	public static final String PROP_ATTRIBUTE_PREFIX = "JsonXMLOutputFactory.attributePrefix";
 
+	/**
+	 * <p>Maximum element nesting depth. Deeper documents are rejected.</p>
+	 * 
+	 * <p>The default is <code>1000</code></p>
+	 */
+	public static final String PROP_MAX_DEPTH = "JsonXMLOutputFactory.maxDepth";
+
 	private JsonStreamFactory streamFactory;
 	private boolean multiplePI;
 	private QName virtualRoot;
 	private boolean autoArray;
+	private AutoArrayPaths autoArrayPaths;
+	private int autoArraySpillThreshold;
 	private boolean autoPrimitive;
 	private boolean prettyPrint;
 	private char namespaceSeparator;
@@ -135,6 +161,8 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	private Map<String, String> namespaceMappings;
 	private String textProperty;
 	private String attributePrefix;
+	private int maxDepth;
+	private volatile FieldNameCache fieldNames;
 
 	public JsonXMLOutputFactory() throws FactoryConfigurationError {
 		this(JsonXMLConfig.DEFAULT);
@@ -159,6 +187,7 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		this.namespaceMappings = config.getNamespaceMappings();
 		this.textProperty = config.getTextProperty();
 		this.attributePrefix = config.getAttributePrefix();
+		this.maxDepth = config instanceof JsonXMLConfigImpl ? ((JsonXMLConfigImpl) config).getMaxDepth() : JsonXMLConfigImpl.DEFAULT_MAX_DEPTH;
 		this.streamFactory = streamFactory;
 
 		/*
@@ -172,13 +201,25 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 			target = new RemoveRootTarget(target, virtualRoot, namespaceSeparator);
 		}
 		if (autoArray) {
-			target = new AutoArrayTarget(target);
+			target = new AutoArrayTarget(target, autoArrayPaths, autoArraySpillThreshold);
 		}
 		if (autoPrimitive) {
 			target = new AutoPrimitiveTarget(target, false, attributePrefix);
 		}
 		return target;
 	}
+
+	/**
+	 * Answer field name cache shared by the writers of this factory
+	 * (replaced when the namespace separator or attribute prefix changes).
+	 */
+	private FieldNameCache fieldNames() {
+		FieldNameCache result = fieldNames;
+		if (result == null || !result.matches(namespaceSeparator, attributePrefix)) {
+			fieldNames = result = new FieldNameCache(FieldNameCache.MAX_SIZE, namespaceSeparator, attributePrefix);
+		}
+		return result;
+	}
 	
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(OutputStream stream, String encoding) throws XMLStreamException {
@@ -207,7 +248,7 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(Writer stream) throws XMLStreamException {
 		try {
-			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)), repairNamespacesMap(), multiplePI, namespaceSeparator, namespaceDeclarations, textProperty, attributePrefix);
+			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)), repairNamespacesMap(), multiplePI, namespaceDeclarations, textProperty, fieldNames(), maxDepth);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -216,7 +257,7 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	@Override
 	public JsonXMLStreamWriter createXMLStreamWriter(OutputStream stream) throws XMLStreamException {
 		try {
-			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)), repairNamespacesMap(), multiplePI, namespaceSeparator, namespaceDeclarations, textProperty, attributePrefix);
+			return new JsonXMLStreamWriter(decorate(streamFactory.createJsonStreamTarget(stream, prettyPrint)), repairNamespacesMap(), multiplePI, namespaceDeclarations, textProperty, fieldNames(), maxDepth);
 		} catch (IOException e) {
 			throw new XMLStreamException(e);
 		}
@@ -230,7 +271,7 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 	@Override
 	public boolean isPropertySupported(String name) {
 		return super.isPropertySupported(name)
-			|| Arrays.asList(PROP_AUTO_ARRAY, PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_DECLARATIONS, PROP_NAMESPACE_MAPPINGS, PROP_PRETTY_PRINT, PROP_TEXT_PROPERTY, PROP_ATTRIBUTE_PREFIX).contains(name);
+			|| Arrays.asList(PROP_AUTO_ARRAY, PROP_AUTO_ARRAY_PATHS, PROP_AUTO_ARRAY_SPILL_THRESHOLD, PROP_MULTIPLE_PI, PROP_VIRTUAL_ROOT, PROP_NAMESPACE_SEPARATOR, PROP_NAMESPACE_DECLARATIONS, PROP_NAMESPACE_MAPPINGS, PROP_PRETTY_PRINT, PROP_TEXT_PROPERTY, PROP_ATTRIBUTE_PREFIX, PROP_MAX_DEPTH).contains(name);
 	}
 
 	@Override
@@ -240,6 +281,10 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		} else { // proprietary properties
 			if (PROP_AUTO_ARRAY.equals(name)) {
 				return Boolean.valueOf(autoArray);
+			} else if (PROP_AUTO_ARRAY_PATHS.equals(name)) {
+				return autoArrayPaths;
+			} else if (PROP_AUTO_ARRAY_SPILL_THRESHOLD.equals(name)) {
+				return Integer.valueOf(autoArraySpillThreshold);
 			} else if (PROP_AUTO_PRIMITIVE.equals(name)) {
 				return Boolean.valueOf(autoPrimitive);
 			} else if (PROP_MULTIPLE_PI.equals(name)) {
@@ -258,6 +303,8 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 				return textProperty;
 			} else if (PROP_ATTRIBUTE_PREFIX.equals(name)) {
 				return attributePrefix;
+			} else if (PROP_MAX_DEPTH.equals(name)) {
+				return Integer.valueOf(maxDepth);
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -271,6 +318,10 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 		} else { // proprietary properties
 			if (PROP_AUTO_ARRAY.equals(name)) {
 				autoArray = ((Boolean)value).booleanValue();
+			} else if (PROP_AUTO_ARRAY_PATHS.equals(name)) {
+				autoArrayPaths = (AutoArrayPaths)value;
+			} else if (PROP_AUTO_ARRAY_SPILL_THRESHOLD.equals(name)) {
+				autoArraySpillThreshold = (Integer)value;
 			} else if (PROP_AUTO_PRIMITIVE.equals(name)) {
 				autoPrimitive = ((Boolean)value).booleanValue();
 			} else if (PROP_MULTIPLE_PI.equals(name)) {
@@ -291,6 +342,8 @@ public class JsonXMLOutputFactory extends AbstractXMLOutputFactory {
 				this.textProperty = (String)value;
 			} else if (PROP_ATTRIBUTE_PREFIX.equals(name)) {
 				this.attributePrefix = (String)value;
+			} else if (PROP_MAX_DEPTH.equals(name)) {
+				this.maxDepth = (Integer)value;
 			} else {
 				throw new IllegalArgumentException("Unsupported property: " + name);
 			}
@@ -26,7 +26,9 @@ import de.odysseus.staxon.base.AbstractXMLStreamReader;
 import de.odysseus.staxon.base.XMLStreamReaderScope;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamSource.Value;
+import de.odysseus.staxon.json.stream.JsonStreamSource.ValueType;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.impl.NamePartsCache;
 
 /**
  * JSON XML stream reader.
@@ -43,16 +45,38 @@ import de.odysseus.staxon.json.stream.JsonStreamToken;
 public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamReader.ScopeInfo> {
 	static class ScopeInfo extends JsonXMLStreamScopeInfo {
 		private String currentTagName;
+
+		@Override
+		void reset() {
+			super.reset();
+			currentTagName = null;
+		}
 	}
-	
+
 	private final JsonStreamSource source;
+	private final NamePartsCache nameParts;
 	private final boolean multiplePI;
 	private final char namespaceSeparator;
 	private final String textProperty;
 	private final String attributePrefix;
+	private final int maxDepth;
 	
 	private boolean documentArray = false;
 
+	/*
+	 * resume state for non-blocking input
+	 */
+	private String pendingName;
+	private String pendingPrefix;
+	private boolean nsDecls;
+
+	/*
+	 * chunked string value in progress (read one chunk per call to consume()),
+	 * with pendingTextEnd telling whether the element ends with the string
+	 */
+	private boolean pendingText;
+	private boolean pendingTextEnd;
+
 	/**
 	 * Create reader instance.
 	 * @param source stream source
@@ -87,8 +111,48 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 	 * @throws XMLStreamException
 	 */
 	public JsonXMLStreamReader(JsonStreamSource source, boolean multiplePI, char namespaceSeparator, Map<String, String> namespaceMappings, String textProperty, String attributePrefix) throws XMLStreamException {
-		super(new ScopeInfo(), source);
+		this(source, multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, JsonXMLConfigImpl.DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 * Create reader instance.
+	 * @param source stream source
+	 * @param multiplePI whether to produce <code>&lt;xml-multiple?&gt;</code> PIs to signal array start
+	 * @param namespaceSeparator namespace prefix separator
+	 * @param namespaceMappings predefined namespaces (may be <code>null</code>)
+	 * @param textProperty name of text field (usually '$')
+	 * @param attributePrefix prefix of attrubute (usually '@')
+	 * @param maxDepth maximum element nesting depth
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamReader(JsonStreamSource source, boolean multiplePI, char namespaceSeparator, Map<String, String> namespaceMappings, String textProperty, String attributePrefix, int maxDepth) throws XMLStreamException {
+		this(source, multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, maxDepth, true);
+	}
+
+	/**
+	 * Create reader instance.
+	 * @param source stream source
+	 * @param multiplePI whether to produce <code>&lt;xml-multiple?&gt;</code> PIs to signal array start
+	 * @param namespaceSeparator namespace prefix separator
+	 * @param namespaceMappings predefined namespaces (may be <code>null</code>)
+	 * @param textProperty name of text field (usually '$')
+	 * @param attributePrefix prefix of attrubute (usually '@')
+	 * @param maxDepth maximum element nesting depth
+	 * @param trackLocation whether to record event locations
+	 * @throws XMLStreamException
+	 */
+	public JsonXMLStreamReader(JsonStreamSource source, boolean multiplePI, char namespaceSeparator, Map<String, String> namespaceMappings, String textProperty, String attributePrefix, int maxDepth, boolean trackLocation) throws XMLStreamException {
+		this(source, null, multiplePI, namespaceSeparator, namespaceMappings, textProperty, attributePrefix, maxDepth, trackLocation);
+	}
+
+	/*
+	 * Create reader instance, sharing name splits via the given cache (may be null).
+	 */
+	JsonXMLStreamReader(JsonStreamSource source, NamePartsCache nameParts, boolean multiplePI, char namespaceSeparator, Map<String, String> namespaceMappings, String textProperty, String attributePrefix, int maxDepth, boolean trackLocation) throws XMLStreamException {
+		super(new ScopeInfo(), source, trackLocation);
+		this.maxDepth = maxDepth;
 		this.source = source;
+		this.nameParts = nameParts;
 		this.multiplePI = multiplePI;
 		this.namespaceSeparator = namespaceSeparator;
 		this.textProperty = textProperty;
@@ -105,69 +169,199 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 		super.initialize();
 	}
 
+	/**
+	 * Split <code>name.substring(start)</code> into prefix and local name.
+	 * Splits of names canonicalized by the stream factory are kept with the names.
+	 */
+	private String[] split(String name, int start) {
+		String[] parts = nameParts == null ? null : nameParts.getNameParts(name, start, namespaceSeparator);
+		if (parts == null) {
+			int separator = name.indexOf(namespaceSeparator, start);
+			if (separator < 0) {
+				parts = new String[]{ XMLConstants.DEFAULT_NS_PREFIX, name.substring(start) };
+			} else {
+				parts = new String[]{ name.substring(start, separator), name.substring(separator+1) };
+			}
+			if (nameParts != null) {
+				nameParts.putNameParts(name, start, namespaceSeparator, parts);
+			}
+		}
+		return parts;
+	}
+
 	private void readStartElementTag(String name) throws XMLStreamException {
-		int separator = name.indexOf(namespaceSeparator);
-		if (separator < 0) {
-			readStartElementTag(XMLConstants.DEFAULT_NS_PREFIX, name, null, new ScopeInfo());
+		if (getScope().getDepth() == maxDepth) {
+			throw new XMLStreamException("Maximum depth exceeded: " + maxDepth);
+		}
+		String[] parts = split(name, 0);
+		ScopeInfo info = getRecycledScopeInfo();
+		if (info == null) {
+			info = new ScopeInfo();
 		} else {
-			readStartElementTag(name.substring(0, separator), name.substring(separator+1), null, new ScopeInfo());
+			info.reset();
 		}
+		readStartElementTag(parts[0], parts[1], null, info);
 	}
 	
-	private void readAttrNsDecl(String name, String value) throws XMLStreamException {
-		int separator = name.indexOf(namespaceSeparator);
-		if (separator < 0) {
-			if (XMLConstants.XMLNS_ATTRIBUTE.equals(name)) {
+	private void readAttrNsDecl(String[] parts, String value) throws XMLStreamException {
+		if (parts[0].length() == 0) {
+			if (XMLConstants.XMLNS_ATTRIBUTE.equals(parts[1])) {
 				readNsDecl(XMLConstants.DEFAULT_NS_PREFIX, value);
 			} else {
-				readAttr(XMLConstants.DEFAULT_NS_PREFIX, name, null, value);
+				readAttr(XMLConstants.DEFAULT_NS_PREFIX, parts[1], null, value);
 			}
 		} else {
-			if (name.startsWith(XMLConstants.XMLNS_ATTRIBUTE) && separator == XMLConstants.XMLNS_ATTRIBUTE.length()) {
-				readNsDecl(name.substring(separator+1), value);
+			if (XMLConstants.XMLNS_ATTRIBUTE.equals(parts[0])) {
+				readNsDecl(parts[1], value);
 			} else {
-				readAttr(name.substring(0, separator), name.substring(separator+1), null, value);
+				readAttr(parts[0], parts[1], null, value);
+			}
+		}
+	}
+
+	/*
+	 * Read value as characters. Number data is the backend's number object.
+	 * Answer false if the value is the leading chunk of a chunked string.
+	 */
+	private boolean readValue() throws XMLStreamException, IOException {
+		switch (source.peekValueType()) {
+		case STRING:
+			String text = source.stringValue();
+			readData(text, text, XMLStreamConstants.CHARACTERS);
+			break;
+		case STRING_CHUNK:
+			String chunk = source.stringValue();
+			readData(chunk, chunk, XMLStreamConstants.CHARACTERS);
+			return false;
+		case NUMBER:
+			Value number = source.value();
+			readData(number.text, number.getData(), XMLStreamConstants.CHARACTERS);
+			break;
+		case BOOLEAN:
+			boolean value = source.booleanValue();
+			readData(value ? "true" : "false", Boolean.valueOf(value), XMLStreamConstants.CHARACTERS);
+			break;
+		default:
+			source.nullValue();
+			readData(null, null, XMLStreamConstants.CHARACTERS);
+		}
+		return true;
+	}
+
+	/*
+	 * Read next chunk of a chunked string as characters, finish element after the last chunk.
+	 */
+	private void readTextChunk() throws XMLStreamException, IOException {
+		boolean last = source.peekValueType() != ValueType.STRING_CHUNK;
+		String text = source.stringValue();
+		if (!last || text.length() > 0) {
+			readData(text, text, XMLStreamConstants.CHARACTERS);
+		}
+		if (last) {
+			pendingText = false;
+			if (pendingTextEnd) {
+				readEndElementTag();
 			}
 		}
 	}
 
-	private void readData(Value value, int type) throws XMLStreamException {
-		readData(value.text, value.data, type);
+	/*
+	 * Read string value, joining chunks (attribute values are not split).
+	 */
+	private String readStringValue() throws IOException {
+		if (source.peekValueType() != ValueType.STRING_CHUNK) {
+			return source.stringValue();
+		}
+		StringBuilder builder = new StringBuilder();
+		while (source.peekValueType() == ValueType.STRING_CHUNK) {
+			builder.append(source.stringValue());
+		}
+		return builder.append(source.stringValue()).toString();
 	}
 
-	private void consumeName(ScopeInfo info) throws XMLStreamException, IOException {
-		String fieldName = source.name();
+	/*
+	 * Consume field name. Answer false if the value is not available yet (non-blocking input),
+	 * in which case the name is kept as pending name and consumption is resumed later.
+	 */
+	private boolean consumeName(ScopeInfo info, String fieldName) throws XMLStreamException, IOException {
+		pendingName = null;
 		if (textProperty.equals(fieldName)) {
-			readData(source.value(), XMLStreamConstants.CHARACTERS);
+			if (source.peek() == JsonStreamToken.NOT_AVAILABLE) {
+				pendingName = fieldName;
+				return false;
+			}
+			if (!readValue()) {
+				pendingText = true;
+				pendingTextEnd = false;
+			}
 		} else if (fieldName.startsWith(attributePrefix)) {
-			fieldName = fieldName.substring(1);
-			if (source.peek() == JsonStreamToken.VALUE) {
-				readAttrNsDecl(fieldName, source.value().text);
-			} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(fieldName)) { // badgerfish
+			String[] parts = split(fieldName, 1);
+			JsonStreamToken token = source.peek();
+			if (token == JsonStreamToken.NOT_AVAILABLE) {
+				pendingName = fieldName;
+				return false;
+			} else if (token == JsonStreamToken.VALUE) {
+				readAttrNsDecl(parts, readStringValue());
+			} else if (parts[0].length() == 0 && XMLConstants.XMLNS_ATTRIBUTE.equals(parts[1])) { // badgerfish
 				source.startObject();
-				while (source.peek() == JsonStreamToken.NAME) {
-					String prefix = source.name();
-					if (textProperty.equals(prefix)) {
-						readNsDecl(XMLConstants.DEFAULT_NS_PREFIX, source.value().text);
-					} else {
-						readNsDecl(prefix, source.value().text);
-					}
-				}
-				source.endObject();
+				nsDecls = true;
+				return consumeNsDecls();
 			} else {
 				throw new IllegalStateException("Expected attribute value");
 			}
 		} else {
 			info.currentTagName = fieldName;
 		}
+		return true;
+	}
+
+	/*
+	 * Consume badgerfish namespace declarations object. Answer false if input is not available.
+	 */
+	private boolean consumeNsDecls() throws XMLStreamException, IOException {
+		while (true) {
+			if (pendingPrefix == null) {
+				switch (source.peek()) {
+				case NOT_AVAILABLE:
+					return false;
+				case NAME:
+					pendingPrefix = source.name();
+					break;
+				default:
+					source.endObject();
+					nsDecls = false;
+					return true;
+				}
+			}
+			if (source.peek() == JsonStreamToken.NOT_AVAILABLE) {
+				return false;
+			}
+			if (textProperty.equals(pendingPrefix)) {
+				readNsDecl(XMLConstants.DEFAULT_NS_PREFIX, readStringValue());
+			} else {
+				readNsDecl(pendingPrefix, readStringValue());
+			}
+			pendingPrefix = null;
+		}
 	}
 
 	@Override
 	protected boolean consume() throws XMLStreamException, IOException {
 		XMLStreamReaderScope<ScopeInfo> scope = getScope();
+		if (nsDecls && !consumeNsDecls() || pendingName != null && !consumeName(scope.getInfo(), pendingName)) {
+			readNotAvailable();
+			return true;
+		}
+		if (pendingText) {
+			readTextChunk();
+			return true;
+		}
 		switch (source.peek()) {
 		case NAME:
-			consumeName(scope.getInfo());
+			if (!consumeName(scope.getInfo(), source.name())) {
+				readNotAvailable();
+				return true;
+			}
 			return consume();
 		case START_ARRAY:
 			source.startArray();
@@ -215,12 +409,18 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 				name = scope.getInfo().getArrayName();
 			}
 			if (getScope().isRoot() && !isStartDocumentRead()) { // hack: allow to read simple value
-				readData(source.value(), XMLStreamConstants.CHARACTERS);
+				if (!readValue()) {
+					pendingText = true;
+					pendingTextEnd = false;
+				}
 			} else {
 				readStartElementTag(name);
-				Value value = source.value();
-				if (value != JsonStreamSource.NULL) {
-					readData(value, XMLStreamConstants.CHARACTERS);
+				if (source.peekValueType() == ValueType.NULL) {
+					source.nullValue();
+				} else if (!readValue()) { // end element follows last chunk
+					pendingText = true;
+					pendingTextEnd = true;
+					return true;
 				}
 				readEndElementTag();
 			}
@@ -237,11 +437,63 @@ public class JsonXMLStreamReader extends AbstractXMLStreamReader<JsonXMLStreamRe
 			return true;
 		case NONE:
 			return false;
+		case NOT_AVAILABLE:
+			readNotAvailable();
+			return true;
 		default:
 			throw new IOException("Unexpected token: " + source.peek());
 		}
 	}
 	
+	/*
+	 * skip remaining content of current object or array
+	 */
+	private void skipContent() throws IOException {
+		JsonStreamToken token = source.peek();
+		while (token != JsonStreamToken.END_OBJECT && token != JsonStreamToken.END_ARRAY) {
+			if (token == JsonStreamToken.NOT_AVAILABLE) {
+				throw new IOException("Input not available");
+			} else if (token == JsonStreamToken.NAME) {
+				source.name();
+			} else {
+				source.skipValue();
+			}
+			token = source.peek();
+		}
+	}
+
+	/**
+	 * Skip the source up to the end of the given element's object, without producing events.
+	 * Each open element scope corresponds to an open JSON object, which may contain an open array.
+	 */
+	@Override
+	protected boolean skip(XMLStreamReaderScope<ScopeInfo> element) throws XMLStreamException, IOException {
+		XMLStreamReaderScope<ScopeInfo> scope;
+		if (pendingText) { // skip remaining chunks
+			pendingText = false;
+			source.skipValue();
+			if (pendingTextEnd) {
+				scope = getScope();
+				readEndElementTag();
+				if (scope == element) {
+					return true;
+				}
+			}
+		}
+		do {
+			scope = getScope();
+			if (scope.getInfo().isArray()) {
+				skipContent();
+				source.endArray();
+				scope.getInfo().endArray();
+			}
+			skipContent();
+			source.endObject();
+			readEndElementTag();
+		} while (scope != element);
+		return true;
+	}
+
 	/**
 	 * @return <code>true</code> iff the current event data is a number primitive
 	 */
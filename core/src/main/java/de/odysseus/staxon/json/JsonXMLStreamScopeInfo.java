@@ -42,6 +42,14 @@ class JsonXMLStreamScopeInfo {
 		return arraySize >= 0;
 	}
 
+	/**
+	 * Reset to initial state for reuse.
+	 */
+	void reset() {
+		this.arrayName = null;
+		this.arraySize = -1;
+	}
+
 	void endArray() {
 		if (!isArray()) {
 			throw new IllegalStateException("Cannot end array: " + arrayName);
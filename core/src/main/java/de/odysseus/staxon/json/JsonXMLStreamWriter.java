@@ -57,6 +57,11 @@ import de.odysseus.staxon.json.stream.JsonStreamTarget;
  * If omitted, the next element within the current scope will start an array. Note, that this method
  * does not allow to create empty arrays (in fact, the above code sample could create unexpected results,
  * if the name would have been omitted and collection were empty).</p>
+ * 
+ * <p>Text written by several <code>writeCharacters(...)</code> calls is streamed to the target
+ * as string chunks, holding back only the last call's text. Leading whitespace is collected
+ * until non-whitespace text arrives, since it may as well precede a child element. Once
+ * text has been streamed, a child element is rejected as mixed content.</p>
  */
 public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWriter.ScopeInfo> {
 	static class ScopeInfo extends JsonXMLStreamScopeInfo {
@@ -64,6 +69,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		private StringBuilder builder = null;
 		boolean startObjectWritten = false;
 		boolean pendingStartArray = false;
+		boolean streaming = false; // leading text has been written as string chunks
 
 		void addText(String data) {
 			if (leadData == null) { // first event?
@@ -85,6 +91,15 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 			this.leadData = data;
 			this.builder = null;
 		}
+		@Override
+		void reset() {
+			super.reset();
+			leadData = null;
+			builder = null;
+			startObjectWritten = false;
+			pendingStartArray = false;
+			streaming = false;
+		}
 	}
 
 	static boolean isWhitespace(Object data) {
@@ -104,10 +119,10 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 	private final boolean multiplePI;
 	private final boolean autoEndArray;
 	private final boolean skipSpace;
-	private final char namespaceSeparator;
 	private final boolean namespaceDeclarations;
 	private final String textProperty;
-	private final String attributePrefix;
+	private final FieldNameCache fieldNames;
+	private final int maxDepth;
 
 	private boolean documentArray = false;
 
@@ -146,26 +161,51 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 	 * @param attributePrefix prefix of attrubute (usually '@')
 	 */
 	public JsonXMLStreamWriter(JsonStreamTarget target, Map<String, String> repairNamespaces, boolean multiplePI, char namespaceSeparator, boolean namespaceDeclarations, String textProperty, String attributePrefix) {
+		this(target, repairNamespaces, multiplePI, namespaceSeparator, namespaceDeclarations, textProperty, attributePrefix, JsonXMLConfigImpl.DEFAULT_MAX_DEPTH);
+	}
+
+	/**
+	 * Create writer instance.
+	 * @param target stream target
+	 * @param repairingNamespaces prefix-URI associations used to repair namespaces (<code>null</code> means do not repair)
+	 * @param multiplePI whether to consume <code>&lt;xml-multiple?&gt;</code> PIs to trigger array start
+	 * @param namespaceSeparator namespace prefix separator
+	 * @param namespaceDeclarations whether to write namespace declarations
+	 * @param textProperty name of text field (usually '$')
+	 * @param attributePrefix prefix of attrubute (usually '@')
+	 * @param maxDepth maximum element nesting depth
+	 */
+	public JsonXMLStreamWriter(JsonStreamTarget target, Map<String, String> repairNamespaces, boolean multiplePI, char namespaceSeparator, boolean namespaceDeclarations, String textProperty, String attributePrefix, int maxDepth) {
+		this(target, repairNamespaces, multiplePI, namespaceDeclarations, textProperty, new FieldNameCache(0, namespaceSeparator, attributePrefix), maxDepth);
+	}
+
+	/**
+	 * Create writer instance, taking field names from the given (shared) cache.
+	 */
+	JsonXMLStreamWriter(JsonStreamTarget target, Map<String, String> repairNamespaces, boolean multiplePI, boolean namespaceDeclarations, String textProperty, FieldNameCache fieldNames, int maxDepth) {
 		super(new ScopeInfo(), repairNamespaces);
+		this.maxDepth = maxDepth;
 		this.target = target;
 		this.multiplePI = multiplePI;
-		this.namespaceSeparator = namespaceSeparator;
 		this.namespaceDeclarations = namespaceDeclarations;
 		this.textProperty = textProperty;
-		this.attributePrefix = attributePrefix;
+		this.fieldNames = fieldNames;
 		this.autoEndArray = true;
 		this.skipSpace = true;
 	}
 
 	private String getFieldName(String prefix, String localName) {
-		return XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? localName : prefix + namespaceSeparator + localName;
+		return fieldNames.getElementName(prefix, localName);
 	}
 	
 	@Override
 	protected ScopeInfo writeStartElementTag(String prefix, String localName, String namespaceURI) throws XMLStreamException {
+		if (getScope().getDepth() == maxDepth) {
+			throw new XMLStreamException("Maximum depth exceeded: " + maxDepth);
+		}
 		ScopeInfo parentInfo = getScope().getInfo();
 		if (parentInfo.hasData()) {
-			if (!skipSpace || !isWhitespace(parentInfo.getData())) {
+			if (parentInfo.streaming || !skipSpace || !isWhitespace(parentInfo.getData())) {
 				throw new XMLStreamException("Mixed content is not supported: '" + parentInfo.getData() + "'");
 			}
 			parentInfo.setData(null);
@@ -196,7 +236,12 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		} catch (IOException e) {
 			throw new XMLStreamException("Cannot write start element: " + fieldName, e);
 		}
-		return new ScopeInfo();
+		ScopeInfo info = getRecycledScopeInfo();
+		if (info == null) {
+			return new ScopeInfo();
+		}
+		info.reset();
+		return info;
 	}
 	
 	@Override
@@ -210,7 +255,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 	protected void writeEndElementTag() throws XMLStreamException {
 		try {
 			if (getScope().getInfo().hasData()) {
-				if (getScope().getInfo().startObjectWritten) {
+				if (getScope().getInfo().startObjectWritten && !getScope().getInfo().streaming) {
 					target.name(textProperty);
 				}
 				target.value(getScope().getInfo().getData());
@@ -230,13 +275,13 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 
 	@Override
 	protected void writeAttr(String prefix, String localName, String namespaceURI, String value) throws XMLStreamException {
-		String name = XMLConstants.DEFAULT_NS_PREFIX.equals(prefix) ? localName : prefix + namespaceSeparator + localName;
+		String name = fieldNames.getAttributeName(prefix, localName);
 		try {
 			if (!getScope().getInfo().startObjectWritten) {
 				target.startObject();
 				getScope().getInfo().startObjectWritten = true;
 			}
-			target.name(attributePrefix + name);
+			target.name(name);
 			target.value(value);
 		} catch (IOException e) {
 			throw new XMLStreamException("Cannot write attribute: " + name, e);
@@ -252,9 +297,9 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 					getScope().getInfo().startObjectWritten = true;
 				}
 				if (XMLConstants.DEFAULT_NS_PREFIX.equals(prefix)) {
-					target.name(attributePrefix + XMLConstants.XMLNS_ATTRIBUTE);
+					target.name(fieldNames.getAttributeName(XMLConstants.DEFAULT_NS_PREFIX, XMLConstants.XMLNS_ATTRIBUTE));
 				} else {
-					target.name(attributePrefix + XMLConstants.XMLNS_ATTRIBUTE + namespaceSeparator + prefix);
+					target.name(fieldNames.getAttributeName(XMLConstants.XMLNS_ATTRIBUTE, prefix));
 				}
 				target.value(namespaceURI);
 			} catch (IOException e) {
@@ -284,7 +329,7 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 					}
 				} else if (getScope().getInfo().hasData()) {
 					if (data instanceof String) {
-						getScope().getInfo().addText(data.toString());
+						addText(getScope().getInfo(), data.toString());
 					} else {
 						throw new XMLStreamException("Cannot append primitive data: " + data);
 					}
@@ -300,6 +345,29 @@ public class JsonXMLStreamWriter extends AbstractXMLStreamWriter<JsonXMLStreamWr
 		}
 	}
 
+	/*
+	 * Append text to current element. Whitespace is collected while it might precede a child element,
+	 * otherwise the text held so far is written as string chunk and the new text is held instead.
+	 */
+	private void addText(ScopeInfo info, String text) throws XMLStreamException {
+		if (!info.streaming && skipSpace && isWhitespace(info.getData()) && isWhitespace(text)) {
+			info.addText(text);
+			return;
+		}
+		try {
+			if (!info.streaming) {
+				if (info.startObjectWritten) {
+					target.name(textProperty);
+				}
+				info.streaming = true;
+			}
+			target.stringChunk(info.getData().toString());
+		} catch (IOException e) {
+			throw new XMLStreamException("Cannot write text", e);
+		}
+		info.setData(text);
+	}
+
 	@Override
 	public void writeStartDocument(String encoding, String version) throws XMLStreamException {
 		super.writeStartDocument(encoding, version);
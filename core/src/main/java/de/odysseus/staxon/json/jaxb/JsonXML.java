@@ -139,4 +139,11 @@ public @interface JsonXML {
 	 * <p>The default value is <code>"@"</code>.</p>
 	 */
 	String attributePrefix() default "@";
+
+	/**
+	 * <p>Maximum element nesting depth.</p>
+	 * 
+	 * <p>The default value is <code>1000</code>.</p>
+	 */
+	int maxDepth() default 1000;
 }
\ No newline at end of file
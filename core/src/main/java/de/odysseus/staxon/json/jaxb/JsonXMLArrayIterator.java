@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.jaxb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.bind.DataBindingException;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.odysseus.staxon.json.JsonXMLStreamConstants;
+
+/**
+ * Iterator over the elements of a JSON array, unmarshalling one element per call to {@link #next()}.
+ *
+ * The iterator closes itself after the last element has been read. Iterators, which are
+ * abandoned before, should be closed explicitly. Closing the iterator does not close the
+ * underlying stream. Errors are reported as {@link DataBindingException}, wrapping the
+ * original <code>JAXBException</code> or <code>XMLStreamException</code>.
+ *
+ * @param <T> element type
+ */
+public class JsonXMLArrayIterator<T> implements Iterator<T>, Closeable {
+	private final JsonXMLBinder binder;
+	private final Class<? extends T> type;
+	private final JsonXML config;
+	private final JAXBContext context;
+	private final XMLStreamReader reader;
+	private final boolean documentArray;
+	private final Unmarshaller unmarshaller;
+
+	private boolean closed = false;
+	private boolean failed = false;
+
+	JsonXMLArrayIterator(JsonXMLBinder binder, Class<? extends T> type, JsonXML config, JAXBContext context, XMLStreamReader reader)
+			throws XMLStreamException, JAXBException {
+		this.binder = binder;
+		this.type = type;
+		this.config = config;
+		this.context = context;
+		this.reader = reader;
+		this.documentArray = JsonXMLStreamConstants.MULTIPLE_PI_TARGET.equals(reader.getPITarget());
+		this.unmarshaller = binder.acquireUnmarshaller(context);
+		while (reader.hasNext() && !reader.isStartElement() && !reader.isCharacters()) {
+			reader.next();
+		}
+	}
+
+	private boolean isNull() {
+		return reader.isCharacters() && reader.getText() == null; // hack: read null
+	}
+
+	/**
+	 * Answer <code>true</code> if there are more elements, close if not.
+	 */
+	boolean hasMore() throws XMLStreamException, JAXBException {
+		if (closed) {
+			return false;
+		}
+		if (reader.hasNext() || isNull()) {
+			return true;
+		}
+		done();
+		return false;
+	}
+
+	/**
+	 * Unmarshal next element.
+	 */
+	T read() throws XMLStreamException, JAXBException {
+		if (!hasMore()) {
+			throw new NoSuchElementException();
+		}
+		T result;
+		boolean success = false;
+		try {
+			if (isNull()) {
+				result = null;
+				if (reader.hasNext()) {
+					reader.next();
+				} else {
+					done();
+				}
+			} else {
+				result = binder.unmarshal(type, config, unmarshaller, reader);
+				if (documentArray && reader.hasNext()) { // move to next document
+					reader.next();
+				}
+			}
+			success = true;
+		} finally {
+			failed |= !success;
+		}
+		return result;
+	}
+
+	private void done() throws XMLStreamException, JAXBException {
+		if (!closed) {
+			closed = true;
+			try {
+				if (!failed) {
+					binder.releaseUnmarshaller(context, unmarshaller);
+				}
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		try {
+			return hasMore();
+		} catch (XMLStreamException e) {
+			throw new DataBindingException(e);
+		} catch (JAXBException e) {
+			throw new DataBindingException(e);
+		}
+	}
+
+	@Override
+	public T next() {
+		try {
+			return read();
+		} catch (XMLStreamException e) {
+			throw new DataBindingException(e);
+		} catch (JAXBException e) {
+			throw new DataBindingException(e);
+		}
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			done();
+		} catch (XMLStreamException e) {
+			throw new IOException(e);
+		} catch (JAXBException e) {
+			throw new IOException(e);
+		}
+	}
+}
@@ -22,6 +22,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -44,10 +47,67 @@ import de.odysseus.staxon.json.util.XMLMultipleStreamWriter;
 
 /**
  * Read/write instances of JAXB-annotated classes from/to JSON.
+ * 
+ * Input and output factories are created once per type and <code>@JsonXML</code>
+ * configuration and cached for subsequent reads and writes. Marshallers and unmarshallers
+ * are pooled per JAXB context and reset before they are reused.
+ * 
+ * Instances are thread-safe.
  */
 public class JsonXMLBinder {
+	/*
+	 * maximum number of cached factory pairs
+	 */
+	private static final int FACTORY_CACHE_SIZE = 256;
+
+	/**
+	 * Default maximum number of idle marshallers and unmarshallers pooled per JAXB context.
+	 */
+	public static final int DEFAULT_MARSHALLER_POOL_SIZE = 16;
+
+	/**
+	 * Factory cache key.
+	 */
+	private static final class FactoryKey {
+		final Class<?> type;
+		final JsonXML config;
+
+		FactoryKey(Class<?> type, JsonXML config) {
+			this.type = type;
+			this.config = config;
+		}
+		@Override
+		public int hashCode() {
+			return 31 * type.hashCode() + config.hashCode();
+		}
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof FactoryKey)) {
+				return false;
+			}
+			FactoryKey other = (FactoryKey) obj;
+			return type == other.type && config.equals(other.config);
+		}
+	}
+
+	/**
+	 * Cached factories, created on demand and never modified.
+	 */
+	private static final class Factories {
+		volatile JsonXMLInputFactory inputFactory;
+		volatile JsonXMLOutputFactory outputFactory;
+	}
+
 	private final JsonXMLRootProvider rootProvider;
 	private final boolean writeDocumentArray;
+
+	private final ConcurrentMap<FactoryKey, Factories> factories = new ConcurrentHashMap<FactoryKey, Factories>();
+	private final AtomicLong factoryCacheHits = new AtomicLong();
+	private final AtomicLong factoryCacheMisses = new AtomicLong();
+	private final MarshallerPool marshallerPool;
 	
 	public JsonXMLBinder() {
 		this(true);
@@ -58,8 +118,20 @@ public class JsonXMLBinder {
 	}
 	
 	protected JsonXMLBinder(JsonXMLRootProvider rootProvider, boolean writeDocumentArray) {
+		this(rootProvider, writeDocumentArray, DEFAULT_MARSHALLER_POOL_SIZE);
+	}
+
+	/**
+	 * Create binder.
+	 * @param rootProvider root provider
+	 * @param writeDocumentArray whether arrays are written as multiple documents
+	 * @param marshallerPoolSize maximum number of idle marshallers and unmarshallers per JAXB context
+	 * (<code>0</code> disables pooling)
+	 */
+	protected JsonXMLBinder(JsonXMLRootProvider rootProvider, boolean writeDocumentArray, int marshallerPoolSize) {
 		this.rootProvider = rootProvider;
 		this.writeDocumentArray = writeDocumentArray;
+		this.marshallerPool = new MarshallerPool(marshallerPoolSize);
 	}
 	
 	private Map<String, String> namespaceMappings(String[] names) {
@@ -86,6 +158,7 @@ public class JsonXMLBinder {
 				namespaceMappings(namespaceMappings(config.namespaceMappings())).
 				textProperty(config.textProperty()).
 				attributePrefix(config.attributePrefix()).
+				maxDepth(config.maxDepth()).
 				build();
 	}
 	
@@ -93,22 +166,106 @@ public class JsonXMLBinder {
 		return new JsonXMLInputFactory(toJsonXMLConfig(type, config));
 	}
 	
+	/*
+	 * Answer cache entry for (type, config). Once the cache is full, answer a fresh entry.
+	 */
+	private Factories factories(Class<?> type, JsonXML config) {
+		FactoryKey key = new FactoryKey(type, config);
+		Factories result = factories.get(key);
+		if (result == null) {
+			result = new Factories();
+			if (factories.size() < FACTORY_CACHE_SIZE) {
+				Factories existing = factories.putIfAbsent(key, result);
+				if (existing != null) {
+					result = existing;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Answer cached input factory, calling {@link #createInputFactory(Class, JsonXML)} on the first request.
+	 */
+	protected JsonXMLInputFactory getInputFactory(Class<?> type, JsonXML config) throws JAXBException {
+		Factories entry = factories(type, config);
+		JsonXMLInputFactory factory = entry.inputFactory;
+		if (factory == null) {
+			factoryCacheMisses.incrementAndGet();
+			entry.inputFactory = factory = createInputFactory(type, config);
+		} else {
+			factoryCacheHits.incrementAndGet();
+		}
+		return factory;
+	}
+
 	protected XMLStreamReader createXMLStreamReader(Class<?> type, JsonXML config, Reader stream) throws XMLStreamException, JAXBException {
-		return createInputFactory(type, config).createXMLStreamReader(stream);
+		return getInputFactory(type, config).createXMLStreamReader(stream);
 	}
 	
 	protected JsonXMLOutputFactory createOutputFactory(Class<?> type, JsonXML config) throws JAXBException {
 		return new JsonXMLOutputFactory(toJsonXMLConfig(type, config));
 	}
 
+	/**
+	 * Answer cached output factory, calling {@link #createOutputFactory(Class, JsonXML)} on the first request.
+	 */
+	protected JsonXMLOutputFactory getOutputFactory(Class<?> type, JsonXML config) throws JAXBException {
+		Factories entry = factories(type, config);
+		JsonXMLOutputFactory factory = entry.outputFactory;
+		if (factory == null) {
+			factoryCacheMisses.incrementAndGet();
+			entry.outputFactory = factory = createOutputFactory(type, config);
+		} else {
+			factoryCacheHits.incrementAndGet();
+		}
+		return factory;
+	}
+
 	protected XMLStreamWriter createXMLStreamWriter(Class<?> type, JsonXML config, Writer stream) throws XMLStreamException, JAXBException {
-		XMLStreamWriter writer = createOutputFactory(type, config).createXMLStreamWriter(stream);
+		XMLStreamWriter writer = getOutputFactory(type, config).createXMLStreamWriter(stream);
 		if (config.multiplePaths().length > 0) {
 			writer = new XMLMultipleStreamWriter(writer, !config.virtualRoot(), config.multiplePaths());
 		}
 		return writer;
 	}
 
+	/**
+	 * @return number of factory requests served from the cache
+	 */
+	public long getFactoryCacheHits() {
+		return factoryCacheHits.get();
+	}
+
+	/**
+	 * @return number of factory requests, which created a new factory
+	 */
+	public long getFactoryCacheMisses() {
+		return factoryCacheMisses.get();
+	}
+
+	/**
+	 * @return number of marshaller/unmarshaller requests served from the pool
+	 */
+	public long getMarshallerPoolHits() {
+		return marshallerPool.getHits();
+	}
+
+	/**
+	 * @return number of marshaller/unmarshaller requests, which created a new instance
+	 */
+	public long getMarshallerPoolMisses() {
+		return marshallerPool.getMisses();
+	}
+
+	Unmarshaller acquireUnmarshaller(JAXBContext context) throws JAXBException {
+		return marshallerPool.acquireUnmarshaller(context);
+	}
+
+	void releaseUnmarshaller(JAXBContext context, Unmarshaller unmarshaller) throws JAXBException {
+		marshallerPool.releaseUnmarshaller(context, unmarshaller);
+	}
+
 	public boolean isBindable(Class<?> type) {
 		return type.isAnnotationPresent(XmlRootElement.class) || type.isAnnotationPresent(XmlType.class);
 	}
@@ -154,9 +311,10 @@ public class JsonXMLBinder {
 			result = null;
 		} else {
 			reader.require(XMLStreamConstants.START_DOCUMENT, null, null);
-			Unmarshaller unmarshaller = context.createUnmarshaller();
+			Unmarshaller unmarshaller = marshallerPool.acquireUnmarshaller(context);
 			result = unmarshal(type, config, unmarshaller, reader);
 			reader.require(XMLStreamConstants.END_DOCUMENT, null, null);
+			marshallerPool.releaseUnmarshaller(context, unmarshaller);
 		}
 		reader.close();
 		return result;
@@ -169,60 +327,63 @@ public class JsonXMLBinder {
 		if (value == null) { // hack: write null
 			writer.writeCharacters(null);
 		} else {
-			Marshaller marshaller = context.createMarshaller();
+			Marshaller marshaller = marshallerPool.acquireMarshaller(context);
 			marshal(type, config, marshaller, writer, value);
+			marshallerPool.releaseMarshaller(context, marshaller);
 		}
 		writer.close();
 	}
 	
-	public <T> List<T> readArray(Class<? extends T> type, JsonXML config, JAXBContext context, Reader stream)
+	/**
+	 * Read array lazily, unmarshalling one element per iteration step.
+	 * @return iterator or <code>null</code> if the JSON input is <code>null</code>
+	 */
+	public <T> JsonXMLArrayIterator<T> streamArray(Class<? extends T> type, JsonXML config, JAXBContext context, Reader stream)
 			throws XMLStreamException, JAXBException {
 		checkBindable(type);
 		XMLStreamReader reader = createXMLStreamReader(type, config, stream);
-		List<T> result;
 		if (reader.isCharacters() && reader.getText() == null) { // hack: read null
-			result = null;
-		} else {
-			boolean documentArray = JsonXMLStreamConstants.MULTIPLE_PI_TARGET.equals(reader.getPITarget());
-			Unmarshaller unmarshaller = context.createUnmarshaller();
-			while (reader.hasNext() && !reader.isStartElement() && !reader.isCharacters()) {
-				reader.next();
-			}
-			result = new ArrayList<T>();
-			while (reader.hasNext() || reader.isCharacters() && reader.getText() == null) {
-				if (reader.isCharacters() && reader.getText() == null) { // hack: read null
-					result.add(null);
-					if (reader.hasNext()) {
-						reader.next();
-					} else {
-						break;
-					}
-				} else {
-					result.add(unmarshal(type, config, unmarshaller, reader));
-					if (documentArray && reader.hasNext()) { // move to next document
-						reader.next();
-					}
-				}
-			}
+			reader.close();
+			return null;
+		}
+		return new JsonXMLArrayIterator<T>(this, type, config, context, reader);
+	}
+
+	public <T> List<T> readArray(Class<? extends T> type, JsonXML config, JAXBContext context, Reader stream)
+			throws XMLStreamException, JAXBException {
+		JsonXMLArrayIterator<T> iterator = streamArray(type, config, context, stream);
+		if (iterator == null) {
+			return null;
+		}
+		List<T> result = new ArrayList<T>();
+		while (iterator.hasMore()) {
+			result.add(iterator.read());
 		}
-		reader.close();
 		return result;
 	}
 
 	public void writeArray(Class<?> type, JsonXML config, JAXBContext context, Writer stream, Collection<?> collection)
 			throws XMLStreamException, JAXBException {
+		writeArray(type, config, context, stream, (Iterable<?>) collection);
+	}
+
+	/**
+	 * Write values as JSON array. The values are iterated once, as they are written.
+	 */
+	public void writeArray(Class<?> type, JsonXML config, JAXBContext context, Writer stream, Iterable<?> values)
+			throws XMLStreamException, JAXBException {
 		checkBindable(type);
 		XMLStreamWriter writer = createXMLStreamWriter(type, config, stream);
-		if (collection == null) { // hack: write null
+		if (values == null) { // hack: write null
 			writer.writeCharacters(null);
 		} else {
-			Marshaller marshaller = context.createMarshaller();
+			Marshaller marshaller = marshallerPool.acquireMarshaller(context);
 			if (!writeDocumentArray) {
 				writer.writeStartDocument();
 				marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
 			}
 			writer.writeProcessingInstruction(JsonXMLStreamConstants.MULTIPLE_PI_TARGET);
-			for (Object value : collection) {
+			for (Object value : values) {
 				if (value == null) { // hack: write null
 					writer.writeCharacters(null);
 				} else {							
@@ -232,6 +393,7 @@ public class JsonXMLBinder {
 			if (!writeDocumentArray) {
 				writer.writeEndDocument();
 			}
+			marshallerPool.releaseMarshaller(context, marshaller);
 		}
 		writer.close();
 	}
@@ -31,6 +31,9 @@ import javax.xml.stream.XMLStreamException;
 
 /**
  * Read/write instances of JAXB-annotated classes from/to JSON.
+ * 
+ * Mappers are thread-safe and intended to be shared: the JAXB context and JSON factories
+ * are created once, marshallers and unmarshallers are pooled by the binder.
  */
 public class JsonXMLMapper<T> {
 	private static final JsonXML getConfig(Class<?> type) throws JAXBException {
@@ -93,6 +96,20 @@ public class JsonXMLMapper<T> {
 		return readArray(new InputStreamReader(input, UTF_8));
 	}
 
+	/**
+	 * Read array lazily, unmarshalling one element per iteration step.
+	 * @param reader
+	 * @return iterator or <code>null</code> if the JSON input is <code>null</code>
+	 * @see JsonXMLArrayIterator
+	 */
+	public JsonXMLArrayIterator<T> streamArray(Reader reader) throws JAXBException, XMLStreamException {
+		return binder.streamArray(type, config, context, reader);
+	}
+
+	public JsonXMLArrayIterator<T> streamArray(InputStream input) throws JAXBException, XMLStreamException {
+		return streamArray(new InputStreamReader(input, UTF_8));
+	}
+
 	public void writeArray(Writer writer, Collection<T> collection) throws JAXBException, XMLStreamException {
 		binder.writeArray(type, config, context, writer, collection);
 	}
@@ -15,7 +15,11 @@
  */
 package de.odysseus.staxon.json.jaxb;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBElement;
@@ -30,8 +34,76 @@ import javax.xml.namespace.QName;
 
 /**
  * Root name/element provider.
+ * 
+ * Root names and factory methods are resolved once per type and cached. The cache
+ * references types, factory classes, factory methods and factory instances only weakly,
+ * so it does not prevent types (and their class loaders) from being garbage collected.
  */
 public class JsonXMLRootProvider {
+	/**
+	 * Resolved root metadata of a type.
+	 */
+	private static final class Metadata {
+		final boolean rootElement;
+		final QName name;
+		final String methodName;
+		final WeakReference<Class<?>> factoryClass;
+		volatile WeakReference<Method> method;
+		volatile WeakReference<Object> factory;
+
+		Metadata(boolean rootElement, QName name, Method method) {
+			this.rootElement = rootElement;
+			this.name = name;
+			if (method == null) {
+				this.methodName = null;
+				this.factoryClass = null;
+			} else {
+				this.methodName = method.getName();
+				this.factoryClass = new WeakReference<Class<?>>(method.getDeclaringClass());
+				this.method = new WeakReference<Method>(method);
+			}
+		}
+
+		private Class<?> factoryClass() {
+			Class<?> result = factoryClass.get();
+			if (result == null) { // cannot happen while the type is alive
+				throw new IllegalStateException("Factory class has been unloaded");
+			}
+			return result;
+		}
+
+		/*
+		 * Answer factory method, look it up again if it has been collected.
+		 */
+		Method method(Class<?> type) throws NoSuchMethodException {
+			Method result = method.get();
+			if (result == null) {
+				result = factoryClass().getDeclaredMethod(methodName, type);
+				method = new WeakReference<Method>(result);
+			}
+			return result;
+		}
+
+		/*
+		 * Answer factory instance, create a new one if it has been collected.
+		 */
+		Object factory() throws InstantiationException, IllegalAccessException {
+			WeakReference<Object> reference = factory;
+			Object result = reference == null ? null : reference.get();
+			if (result == null) {
+				result = factoryClass().newInstance();
+				factory = new WeakReference<Object>(result);
+			}
+			return result;
+		}
+	}
+
+	/*
+	 * weak keys, metadata does not reference the type or its class loader
+	 */
+	private final Map<Class<?>, Metadata> metadata =
+			Collections.synchronizedMap(new WeakHashMap<Class<?>, Metadata>());
+
 	protected String getNamespaceURI(XmlType xmlType, XmlSchema xmlSchema) {
 		if ("##default".equals(xmlType.namespace())) {
 			return xmlSchema == null ? XMLConstants.NULL_NS_URI : xmlSchema.namespace();
@@ -109,7 +181,8 @@ public class JsonXMLRootProvider {
 
 	/**
 	 * Determine <code>@XmlElementDecl</code>-annotated factory method to create {@link JAXBElement}
-	 * for an <code>@XmlType</code>-annotated type
+	 * for an <code>@XmlType</code>-annotated type.
+	 * The default <code>ObjectFactory</code> is loaded via the type's class loader.
 	 * @param type
 	 * @return element
 	 */
@@ -122,7 +195,11 @@ public class JsonXMLRootProvider {
 		if (factoryClass == XmlType.DEFAULT.class) {
 			String defaultObjectFactoryName = type.getPackage().getName() + ".ObjectFactory";
 			try {
-				factoryClass = Thread.currentThread().getContextClassLoader().loadClass(defaultObjectFactoryName);
+				ClassLoader classLoader = type.getClassLoader();
+				if (classLoader == null) { // bootstrap class
+					classLoader = Thread.currentThread().getContextClassLoader();
+				}
+				factoryClass = classLoader.loadClass(defaultObjectFactoryName);
 			} catch (Exception e) {
 				factoryClass = type;
 			}
@@ -146,6 +223,24 @@ public class JsonXMLRootProvider {
 		return null;
 	}
 
+	/*
+	 * Answer cached metadata, resolve on first request.
+	 */
+	private Metadata getMetadata(Class<?> type) {
+		Metadata result = metadata.get(type);
+		if (result == null) {
+			if (type.getAnnotation(XmlRootElement.class) != null) {
+				result = new Metadata(true, getXmlRootElementName(type), null);
+			} else if (type.getAnnotation(XmlType.class) != null) {
+				result = new Metadata(false, getXmlTypeName(type), getXmlElementDeclMethod(type));
+			} else {
+				result = new Metadata(false, null, null);
+			}
+			metadata.put(type, result);
+		}
+		return result;
+	}
+
 	/**
 	 * Calculate root element name for an
 	 * <code>@XmlRootElement</code> or <code>@XmlType</code>-annotaed type.
@@ -153,13 +248,7 @@ public class JsonXMLRootProvider {
 	 * @return name or <code>null</code>
 	 */
 	public QName getName(Class<?> type) {
-		if (type.getAnnotation(XmlRootElement.class) != null) {
-			return getXmlRootElementName(type);
-		} else if (type.getAnnotation(XmlType.class) != null) {
-			return getXmlTypeName(type);
-		} else {
-			return null;
-		}
+		return getMetadata(type).name;
 	}
 
 	/**
@@ -170,21 +259,18 @@ public class JsonXMLRootProvider {
 	 * @return root element (or <code>null</code>)
 	 */
 	public JAXBElement<?> createElement(Class<?> type, Object value) throws JAXBException {
-		if (type.getAnnotation(XmlRootElement.class) != null) {
-			QName name = getXmlRootElementName(type);
-			if (name != null) {
+		Metadata entry = getMetadata(type);
+		if (entry.rootElement) {
+			if (entry.name != null) {
 				@SuppressWarnings({"rawtypes", "unchecked"})
-				JAXBElement<?> genericElement = new JAXBElement(name, type, value);
+				JAXBElement<?> genericElement = new JAXBElement(entry.name, type, value);
 				return genericElement;
 			}
-		} else if (type.getAnnotation(XmlType.class) != null) {
-			Method method = getXmlElementDeclMethod(type);
-			if (method != null) {
-				try {
-					return (JAXBElement<?>)method.invoke(method.getDeclaringClass().newInstance(), value);
-				} catch (Exception e) {
-					throw new JAXBException("Cannot create JAXBElement", e);
-				}
+		} else if (entry.methodName != null) {
+			try {
+				return (JAXBElement<?>)entry.method(type).invoke(entry.factory(), value);
+			} catch (Exception e) {
+				throw new JAXBException("Cannot create JAXBElement", e);
 			}
 		}
 		return null;
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.jaxb;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+
+/**
+ * Bounded pool of idle marshallers and unmarshallers per JAXB context.
+ *
+ * <p>Instances are reset when they are returned to the pool: the fragment property,
+ * event handler, listener, schema and attachment handlers are restored to their defaults.
+ * Instances, which have been used in a failed operation, should not be returned.</p>
+ */
+class MarshallerPool {
+	/*
+	 * maximum number of pooled contexts
+	 */
+	private static final int MAX_CONTEXTS = 256;
+
+	/**
+	 * Idle instances of a context.
+	 */
+	private static final class Idle<T> {
+		final Queue<T> instances = new ConcurrentLinkedQueue<T>();
+		final AtomicInteger size = new AtomicInteger();
+	}
+
+	private final ConcurrentMap<JAXBContext, Idle<Marshaller>> marshallers = new ConcurrentHashMap<JAXBContext, Idle<Marshaller>>();
+	private final ConcurrentMap<JAXBContext, Idle<Unmarshaller>> unmarshallers = new ConcurrentHashMap<JAXBContext, Idle<Unmarshaller>>();
+	private final int maxIdle;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Create pool.
+	 * @param maxIdle maximum number of idle instances per context (<code>0</code> disables pooling)
+	 */
+	MarshallerPool(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	private <T> Idle<T> idle(ConcurrentMap<JAXBContext, Idle<T>> pool, JAXBContext context) {
+		Idle<T> result = pool.get(context);
+		if (result == null && maxIdle > 0 && pool.size() < MAX_CONTEXTS) {
+			result = new Idle<T>();
+			Idle<T> existing = pool.putIfAbsent(context, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	private <T> T poll(Idle<T> idle) {
+		T instance = idle == null ? null : idle.instances.poll();
+		if (instance == null) {
+			misses.incrementAndGet();
+		} else {
+			idle.size.decrementAndGet();
+			hits.incrementAndGet();
+		}
+		return instance;
+	}
+
+	private <T> void offer(Idle<T> idle, T instance) {
+		if (idle != null && idle.size.incrementAndGet() <= maxIdle) {
+			idle.instances.offer(instance);
+		} else if (idle != null) {
+			idle.size.decrementAndGet();
+		}
+	}
+
+	Marshaller acquireMarshaller(JAXBContext context) throws JAXBException {
+		Marshaller marshaller = poll(marshallers.get(context));
+		return marshaller != null ? marshaller : context.createMarshaller();
+	}
+
+	void releaseMarshaller(JAXBContext context, Marshaller marshaller) throws JAXBException {
+		if (maxIdle > 0) {
+			marshaller.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.FALSE);
+			marshaller.setEventHandler(null);
+			marshaller.setListener(null);
+			marshaller.setSchema(null);
+			marshaller.setAttachmentMarshaller(null);
+			offer(idle(marshallers, context), marshaller);
+		}
+	}
+
+	Unmarshaller acquireUnmarshaller(JAXBContext context) throws JAXBException {
+		Unmarshaller unmarshaller = poll(unmarshallers.get(context));
+		return unmarshaller != null ? unmarshaller : context.createUnmarshaller();
+	}
+
+	void releaseUnmarshaller(JAXBContext context, Unmarshaller unmarshaller) throws JAXBException {
+		if (maxIdle > 0) {
+			unmarshaller.setEventHandler(null);
+			unmarshaller.setListener(null);
+			unmarshaller.setSchema(null);
+			unmarshaller.setAttachmentUnmarshaller(null);
+			offer(idle(unmarshallers, context), unmarshaller);
+		}
+	}
+
+	long getHits() {
+		return hits.get();
+	}
+
+	long getMisses() {
+		return misses.get();
+	}
+}
@@ -24,7 +24,10 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.Map;
 import java.util.Properties;
+import java.util.WeakHashMap;
 
 import javax.xml.stream.FactoryConfigurationError;
 
@@ -35,6 +38,12 @@ import javax.xml.stream.FactoryConfigurationError;
  * implementation using the Services API (as detailed in the JAR specification).</p>
  */
 public abstract class JsonStreamFactory {
+	/*
+	 * discovered factory classes by class loader (weak values, since classes refer to their loader)
+	 */
+	private static final Map<ClassLoader, WeakReference<Class<?>>> FACTORY_CLASSES =
+			new WeakHashMap<ClassLoader, WeakReference<Class<?>>>();
+
 	private static String getMetaInfServicesClassName(Class<?> serviceInterface, ClassLoader classLoader) {
 		String serviceId = "META-INF/services/" + serviceInterface.getName();
 		InputStream input = classLoader.getResourceAsStream(serviceId);
@@ -110,6 +119,8 @@ public abstract class JsonStreamFactory {
 	 * <li>Use platform default: "de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl".</li>
 	 * </ol>
 	 * </p>
+	 * <p>The class is determined once per (context) class loader. Call {@link #reset()} to
+	 * repeat the lookup, e.g. after changing the system property.</p>
 	 * @return An instance of JsonStreamFactory.
 	 * @throws FactoryConfigurationError
 	 *             if a factory class cannot be found or instantiation fails.
@@ -122,6 +133,31 @@ public abstract class JsonStreamFactory {
 			classLoader = JsonStreamFactory.class.getClassLoader();
 		}
 
+		try {
+			return (JsonStreamFactory) getFactoryClass(classLoader).newInstance();
+		} catch (Throwable e) {
+			throw new FactoryConfigurationError("Error creating stream factory: " + e);
+		}
+	}
+
+	/**
+	 * Forget factory classes determined by {@link #newFactory()}.
+	 */
+	public static void reset() {
+		synchronized (FACTORY_CLASSES) {
+			FACTORY_CLASSES.clear();
+		}
+	}
+
+	private static Class<?> getFactoryClass(ClassLoader classLoader) throws ClassNotFoundException {
+		synchronized (FACTORY_CLASSES) {
+			WeakReference<Class<?>> reference = FACTORY_CLASSES.get(classLoader);
+			Class<?> factoryClass = reference == null ? null : reference.get();
+			if (factoryClass != null) {
+				return factoryClass;
+			}
+		}
+
 		String className = getMetaInfServicesClassName(JsonStreamFactory.class, classLoader);
 
 		if (className == null || className.trim().length() == 0) {
@@ -140,11 +176,11 @@ public abstract class JsonStreamFactory {
 			className = "de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl";
 		}
 
-		try {
-			return (JsonStreamFactory) classLoader.loadClass(className).newInstance();
-		} catch (Throwable e) {
-			throw new FactoryConfigurationError("Error creating stream factory: " + e);
+		Class<?> factoryClass = classLoader.loadClass(className);
+		synchronized (FACTORY_CLASSES) {
+			FACTORY_CLASSES.put(classLoader, new WeakReference<Class<?>>(factoryClass));
 		}
+		return factoryClass;
 	}
 
 	/**
@@ -163,6 +199,85 @@ public abstract class JsonStreamFactory {
 	 */
 	public abstract JsonStreamSource createJsonStreamSource(Reader reader) throws IOException;
 
+	/**
+	 * Create stream source.
+	 * If <code>trackLocation</code> is <code>false</code>, the source is not required to
+	 * report line and column numbers, which may save some bookkeeping.
+	 * This implementation ignores the flag and calls {@link #createJsonStreamSource(InputStream)}.
+	 * @param input
+	 * @param trackLocation whether to track line and column numbers
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(InputStream input, boolean trackLocation) throws IOException {
+		return createJsonStreamSource(input);
+	}
+
+	/**
+	 * Create stream source.
+	 * If <code>trackLocation</code> is <code>false</code>, the source is not required to
+	 * report line and column numbers, which may save some bookkeeping.
+	 * This implementation ignores the flag and calls {@link #createJsonStreamSource(Reader)}.
+	 * @param reader
+	 * @param trackLocation whether to track line and column numbers
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(Reader reader, boolean trackLocation) throws IOException {
+		return createJsonStreamSource(reader);
+	}
+
+	/**
+	 * Create stream source, which delivers long string values in chunks.
+	 * String values exceeding <code>chunkSize</code> characters may be split into a sequence of
+	 * {@link JsonStreamSource.ValueType#STRING_CHUNK} values followed by a final
+	 * {@link JsonStreamSource.ValueType#STRING} value.
+	 * This implementation ignores the chunk size and calls {@link #createJsonStreamSource(InputStream, boolean)}.
+	 * @param input
+	 * @param trackLocation whether to track line and column numbers
+	 * @param chunkSize approximate chunk length (<code>0</code> means do not split strings)
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(InputStream input, boolean trackLocation, int chunkSize) throws IOException {
+		return createJsonStreamSource(input, trackLocation);
+	}
+
+	/**
+	 * Create stream source, which delivers long string values in chunks.
+	 * String values exceeding <code>chunkSize</code> characters may be split into a sequence of
+	 * {@link JsonStreamSource.ValueType#STRING_CHUNK} values followed by a final
+	 * {@link JsonStreamSource.ValueType#STRING} value.
+	 * This implementation ignores the chunk size and calls {@link #createJsonStreamSource(Reader, boolean)}.
+	 * @param reader
+	 * @param trackLocation whether to track line and column numbers
+	 * @param chunkSize approximate chunk length (<code>0</code> means do not split strings)
+	 * @return stream source
+	 * @throws IOException
+	 */
+	public JsonStreamSource createJsonStreamSource(Reader reader, boolean trackLocation, int chunkSize) throws IOException {
+		return createJsonStreamSource(reader, trackLocation);
+	}
+
+	/**
+	 * Answer <code>true</code> if this factory creates non-blocking stream sources.
+	 * This implementation answers <code>false</code>.
+	 * @return <code>true</code> if {@link #createNonBlockingJsonStreamSource()} is supported
+	 */
+	public boolean supportsNonBlocking() {
+		return false;
+	}
+
+	/**
+	 * Create non-blocking stream source.
+	 * This implementation throws an <code>IOException</code>.
+	 * @return non-blocking stream source
+	 * @throws IOException if non-blocking input is not supported (see {@link #supportsNonBlocking()})
+	 */
+	public NonBlockingJsonStreamSource createNonBlockingJsonStreamSource() throws IOException {
+		throw new IOException("Non-blocking input is not supported by " + getClass().getName());
+	}
+
 	/**
 	 * Create stream target.
 	 * @param output
@@ -17,6 +17,8 @@ package de.odysseus.staxon.json.stream;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 
 import javax.xml.stream.Location;
 
@@ -28,11 +30,17 @@ public interface JsonStreamSource extends Closeable, Location {
 	 * Represents a simple value.
 	 */
 	public static class Value {
+		private static final int EAGER = 0;
+		private static final int INTEGER = 1;
+		private static final int DECIMAL = 2;
+
 		public final String text;
-		public final Object data;
+		private final int kind;
+		private Object data;
 
 		private Value(String text, Object data) {
 			this.text = text;
+			this.kind = EAGER;
 			this.data = data;
 		}
 
@@ -45,6 +53,18 @@ public interface JsonStreamSource extends Closeable, Location {
 			this(text, (Object) number);
 		}
 
+		/**
+		 * Create number value, which is parsed from its text on first access.
+		 * The number data will be a <code>BigInteger</code> if <code>integer</code>
+		 * is <code>true</code> and a <code>BigDecimal</code> otherwise.
+		 * @param text number text
+		 * @param integer whether the text is an integer literal (no fraction, no exponent)
+		 */
+		public Value(String text, boolean integer) {
+			this.text = text;
+			this.kind = integer ? INTEGER : DECIMAL;
+		}
+
 		/**
 		 * Create string value
 		 * @param text
@@ -52,6 +72,87 @@ public interface JsonStreamSource extends Closeable, Location {
 		public Value(String text) {
 			this(text, text);
 		}
+
+		/**
+		 * Answer value data: a string, number or boolean (or <code>null</code>).
+		 * Lazy numbers are parsed on first access.
+		 * @return value data
+		 */
+		public Object getData() {
+			if (data == null) {
+				if (kind == INTEGER) {
+					data = new BigInteger(text);
+				} else if (kind == DECIMAL) {
+					data = new BigDecimal(text);
+				}
+			}
+			return data;
+		}
+
+		/**
+		 * @return <code>true</code> if this is a number value
+		 */
+		public boolean isNumber() {
+			return kind != EAGER || data instanceof Number;
+		}
+
+		/**
+		 * Answer number value as <code>long</code>. Fractional numbers are truncated.
+		 * Integer literals fitting into a <code>long</code> are parsed directly
+		 * without creating a number object.
+		 * @return long value
+		 * @throws NumberFormatException if this is not a number or out of the range of a <code>long</code>
+		 */
+		public long longValue() {
+			if (kind == INTEGER && data == null && text.length() < 19) {
+				return Long.parseLong(text);
+			}
+			Number number = number();
+			if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+				return number.longValue();
+			}
+			BigInteger integer;
+			if (number instanceof BigInteger) {
+				integer = (BigInteger) number;
+			} else if (number instanceof BigDecimal) {
+				BigDecimal decimal = (BigDecimal) number;
+				if (decimal.precision() - decimal.scale() > 19) { // don't expand huge exponents
+					throw new NumberFormatException("Number out of range of long: " + text);
+				}
+				integer = decimal.toBigInteger();
+			} else {
+				double value = number.doubleValue();
+				if (value >= -0x1p63 && value < 0x1p63) {
+					return (long) value;
+				}
+				throw new NumberFormatException("Number out of range of long: " + text);
+			}
+			if (integer.bitLength() > 63) {
+				throw new NumberFormatException("Number out of range of long: " + text);
+			}
+			return integer.longValue();
+		}
+
+		/**
+		 * Answer number value as <code>double</code>.
+		 * Lazy numbers are parsed directly without creating a number object.
+		 * @return double value
+		 * @throws NumberFormatException if this is not a number
+		 */
+		public double doubleValue() {
+			if (kind != EAGER && data == null) {
+				return Double.parseDouble(text);
+			}
+			return number().doubleValue();
+		}
+
+		private Number number() {
+			Object data = getData();
+			if (data instanceof Number) {
+				return (Number) data;
+			}
+			throw new NumberFormatException("Not a number: " + text);
+		}
 		
 		@Override
 		public String toString() {
@@ -59,6 +160,22 @@ public interface JsonStreamSource extends Closeable, Location {
 		}
 	}
 	
+	/**
+	 * Value types, as reported by {@link JsonStreamSource#peekValueType()}.
+	 */
+	public enum ValueType {
+		STRING,
+		NUMBER,
+		BOOLEAN,
+		NULL,
+		/**
+		 * Leading chunk of a long string value, only reported by sources created with a chunk size.
+		 * The string continues with the next {@link JsonStreamToken#VALUE} token, which is either
+		 * another chunk or the final part of type {@link #STRING}.
+		 */
+		STRING_CHUNK
+	}
+
 	/**
 	 * "true" value
 	 */
@@ -88,6 +205,56 @@ public interface JsonStreamSource extends Closeable, Location {
 	 */
 	public Value value() throws IOException;
 	
+	/**
+	 * Peek type of the next {@link JsonStreamToken#VALUE} token.
+	 * @return value type
+	 * @throws IOException if the next token is not a value
+	 */
+	public ValueType peekValueType() throws IOException;
+
+	/**
+	 * Consume {@link JsonStreamToken#VALUE} token as string.
+	 * For numbers and booleans, the value text is returned.
+	 * @return string value (<code>null</code> for a <code>null</code> value)
+	 * @throws IOException
+	 */
+	public String stringValue() throws IOException;
+
+	/**
+	 * Consume {@link JsonStreamToken#VALUE} token as <code>long</code>.
+	 * Fractional numbers are truncated.
+	 * @return long value
+	 * @throws IOException if the value is not a number or out of the range of a <code>long</code>
+	 */
+	public long longValue() throws IOException;
+
+	/**
+	 * Consume {@link JsonStreamToken#VALUE} token as <code>double</code>.
+	 * @return double value
+	 * @throws IOException if the value is not a number
+	 */
+	public double doubleValue() throws IOException;
+
+	/**
+	 * Consume {@link JsonStreamToken#VALUE} token as <code>boolean</code>.
+	 * @return boolean value
+	 * @throws IOException if the value is not a boolean
+	 */
+	public boolean booleanValue() throws IOException;
+
+	/**
+	 * Consume <code>null</code> {@link JsonStreamToken#VALUE} token.
+	 * @throws IOException if the value is not <code>null</code>
+	 */
+	public void nullValue() throws IOException;
+
+	/**
+	 * Skip the next value. If the next token is {@link JsonStreamToken#START_OBJECT} or
+	 * {@link JsonStreamToken#START_ARRAY}, the whole object or array is skipped.
+	 * @throws IOException if the next token does not start a value
+	 */
+	public void skipValue() throws IOException;
+
 	/**
 	 * Consume {@link JsonStreamToken#START_OBJECT} token.
 	 * @throws IOException
@@ -36,6 +36,15 @@ public interface JsonStreamTarget extends Closeable, Flushable {
 	 * @throws IOException
 	 */
 	public void value(Object value) throws IOException;
+
+	/**
+	 * Write leading chunk of a string value. The string is continued by further chunks
+	 * and completed by {@link #value(Object)}, passing the last (possibly empty) chunk.
+	 * Targets, which cannot write partial strings, may collect the chunks until then.
+	 * @param chunk
+	 * @throws IOException
+	 */
+	public void stringChunk(String chunk) throws IOException;
 	
 	/**
 	 * Start object
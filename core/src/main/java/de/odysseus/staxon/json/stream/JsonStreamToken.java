@@ -52,5 +52,10 @@ public enum JsonStreamToken {
 	/**
 	 * End of input
 	 */
-	NONE;
+	NONE,
+
+	/**
+	 * Input not available yet (non-blocking source)
+	 */
+	NOT_AVAILABLE;
 }
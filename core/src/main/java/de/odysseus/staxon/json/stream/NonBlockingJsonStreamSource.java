@@ -0,0 +1,45 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking JSON stream source.
+ * 
+ * <p>Input is pushed into the source via {@link #feed(ByteBuffer)}. If the available input
+ * does not suffice to determine the next token, {@link #peek()} answers
+ * {@link JsonStreamToken#NOT_AVAILABLE}. Feed more input (or signal {@link #endOfInput()})
+ * and peek again.</p>
+ * 
+ * <p>If the input runs dry while skipping a value, {@link #skipValue()} throws an
+ * <code>IOException</code>. The skip is kept pending: feed more input and call
+ * {@link #skipValue()} (or {@link #peek()}) again to continue it.</p>
+ */
+public interface NonBlockingJsonStreamSource extends JsonStreamSource {
+	/**
+	 * Feed input. The source consumes all remaining bytes of the given buffer.
+	 * @param input UTF-8 encoded bytes
+	 * @throws IOException
+	 */
+	public void feed(ByteBuffer input) throws IOException;
+
+	/**
+	 * Signal that no more input will be fed.
+	 */
+	public void endOfInput();
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+/**
+ * Reusable character sequence, backed by a region of a <code>char</code> array.
+ * A slice does not copy its characters, it is only valid as long as the backing
+ * array region is left unchanged.
+ */
+final class CharSlice implements CharSequence {
+	private char[] array;
+	private int offset;
+	private int length;
+
+	CharSlice set(char[] array, int offset, int length) {
+		this.array = array;
+		this.offset = offset;
+		this.length = length;
+		return this;
+	}
+
+	/**
+	 * @return backing array
+	 */
+	char[] array() {
+		return array;
+	}
+
+	/**
+	 * @return start index in backing array
+	 */
+	int offset() {
+		return offset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return array[offset + index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		if (start < 0 || end > length || start > end) {
+			throw new IndexOutOfBoundsException();
+		}
+		return new String(array, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(array, offset, length);
+	}
+}
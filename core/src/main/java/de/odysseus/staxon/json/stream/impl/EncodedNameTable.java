@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded table of encoded field names used by stream targets.
+ *
+ * <p>An encoded name holds the quoted and escaped name, followed by the (optional) space
+ * and the colon, as characters and as UTF-8 bytes (encoded on first use by a byte output),
+ * ready to be written in a single call. Once the table is full, new names are no longer
+ * added; targets write them directly instead.</p>
+ */
+final class EncodedNameTable {
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	static final class EncodedName {
+		final char[] chars;
+		private volatile byte[] bytes;
+
+		EncodedName(char[] chars) {
+			this.chars = chars;
+		}
+
+		byte[] bytes() {
+			byte[] result = bytes;
+			if (result == null) {
+				bytes = result = new String(chars).getBytes(UTF_8);
+			}
+			return result;
+		}
+	}
+
+	private final ConcurrentHashMap<String, EncodedName> names = new ConcurrentHashMap<String, EncodedName>();
+	private final int maxSize;
+	private final String space;
+
+	/**
+	 * Create table.
+	 * @param maxSize maximum number of names
+	 * @param space inserted before colon (may be <code>null</code>)
+	 */
+	EncodedNameTable(int maxSize, String space) {
+		this.maxSize = maxSize;
+		this.space = space;
+	}
+
+	private EncodedName encode(String name) {
+		StringBuilder builder = new StringBuilder(name.length() + 8).append('"');
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c < 128 && JsonStreamTargetImpl.ESCAPES[c] != null) {
+				builder.append(JsonStreamTargetImpl.ESCAPES[c]);
+			} else {
+				builder.append(c);
+			}
+		}
+		builder.append('"');
+		if (space != null) {
+			builder.append(space);
+		}
+		builder.append(':');
+		char[] chars = new char[builder.length()];
+		builder.getChars(0, chars.length, chars, 0);
+		return new EncodedName(chars);
+	}
+
+	/**
+	 * Answer encoded name.
+	 * @param name field name
+	 * @return encoded name or <code>null</code> if the name is not in the table and the table is full
+	 */
+	EncodedName lookup(String name) {
+		EncodedName result = names.get(name);
+		if (result == null && names.size() < maxSize) {
+			result = encode(name);
+			EncodedName existing = names.putIfAbsent(name, result);
+			if (existing != null) {
+				result = existing;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of names in this table
+	 */
+	int size() {
+		return names.size();
+	}
+}
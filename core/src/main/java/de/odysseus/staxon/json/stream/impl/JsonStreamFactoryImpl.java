@@ -15,25 +15,31 @@
  */
 package de.odysseus.staxon.json.stream.impl;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 
 import de.odysseus.staxon.json.stream.JsonStreamFactory;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.NonBlockingJsonStreamSource;
 
 /**
  * Default <code>JsonStreamFactory</code> implementation.
  */
-public class JsonStreamFactoryImpl extends JsonStreamFactory {
+public class JsonStreamFactoryImpl extends JsonStreamFactory implements NamePartsCache {
+	/**
+	 * Maximum number of field names kept in a factory's name tables.
+	 */
+	public static final int NAME_TABLE_SIZE = 4096;
+
 	private final String prettyIndent;
 	private final String prettyNewline;
 	private final String prettySpace;
+	private final NameTable names;
+	private final EncodedNameTable encodedNames;
+	private final EncodedNameTable prettyEncodedNames;
 
 	/**
 	 * Create instance.
@@ -52,32 +58,155 @@ public class JsonStreamFactoryImpl extends JsonStreamFactory {
 	 * @param prettyNewline newline character sequence
 	 */
 	public JsonStreamFactoryImpl(String prettySpace, String prettyIndent, String prettyNewline) {
+		this(prettySpace, prettyIndent, prettyNewline, true);
+	}
+
+	/**
+	 * Create instance.
+	 * If <code>canonicalizeNames</code> is set, field names are canonicalized using a bounded
+	 * name table shared by all sources created by this factory: repeated names are returned
+	 * as the same (interned) string instance.
+	 * @param prettySpace inserted around colons, commas, etc
+	 * @param prettyIndent indentation per depth level
+	 * @param prettyNewline newline character sequence
+	 * @param canonicalizeNames whether to canonicalize field names
+	 */
+	public JsonStreamFactoryImpl(String prettySpace, String prettyIndent, String prettyNewline, boolean canonicalizeNames) {
 		this.prettySpace = prettySpace;
 		this.prettyIndent = prettyIndent;
 		this.prettyNewline = prettyNewline;
+		this.names = canonicalizeNames ? new NameTable(NAME_TABLE_SIZE) : null;
+		this.encodedNames = new EncodedNameTable(NAME_TABLE_SIZE, null);
+		this.prettyEncodedNames = new EncodedNameTable(NAME_TABLE_SIZE, prettySpace);
 	}
 	
+	/**
+	 * Create stream source.
+	 * The input is expected to be UTF-8 encoded and will be scanned directly
+	 * on its bytes, without going through an <code>InputStreamReader</code>.
+	 * @param input
+	 * @return stream source
+	 */
 	@Override
-	public JsonStreamSource createJsonStreamSource(InputStream input) throws IOException {
-		return createJsonStreamSource(new InputStreamReader(input, "UTF-8"));
+	public JsonStreamSource createJsonStreamSource(InputStream input) {
+		return new JsonStreamSourceImpl(new Utf8Scanner(input), false, names);
 	}
 	
 	@Override
 	public JsonStreamSource createJsonStreamSource(Reader reader) {
-		return new JsonStreamSourceImpl(new Yylex(reader), false);
+		return new JsonStreamSourceImpl(new Yylex(reader), false, names);
+	}
+
+	/**
+	 * Create stream source.
+	 * If <code>trackLocation</code> is <code>false</code>, the scanner skips line and
+	 * column bookkeeping and the source reports <code>-1</code> for these.
+	 * The input is expected to be UTF-8 encoded.
+	 * @param input
+	 * @param trackLocation whether to track line and column numbers
+	 * @return stream source
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(InputStream input, boolean trackLocation) {
+		return createJsonStreamSource(input, trackLocation, 0);
+	}
+
+	/**
+	 * Create stream source.
+	 * If <code>trackLocation</code> is <code>false</code>, the scanner skips line and
+	 * column bookkeeping and the source reports <code>-1</code> for these.
+	 * @param reader
+	 * @param trackLocation whether to track line and column numbers
+	 * @return stream source
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(Reader reader, boolean trackLocation) {
+		return createJsonStreamSource(reader, trackLocation, 0);
+	}
+
+	/**
+	 * Create stream source, which delivers string values in chunks of about <code>chunkSize</code>
+	 * characters. The input is expected to be UTF-8 encoded.
+	 * @param input
+	 * @param trackLocation whether to track line and column numbers
+	 * @param chunkSize approximate chunk length (<code>0</code> means do not split strings)
+	 * @return stream source
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(InputStream input, boolean trackLocation, int chunkSize) {
+		return new JsonStreamSourceImpl(new Utf8Scanner(input, Utf8Scanner.BUFFER_SIZE, chunkSize, trackLocation), false, names);
+	}
+
+	/**
+	 * Create stream source, which delivers string values in chunks of about <code>chunkSize</code>
+	 * characters.
+	 * @param reader
+	 * @param trackLocation whether to track line and column numbers
+	 * @param chunkSize approximate chunk length (<code>0</code> means do not split strings)
+	 * @return stream source
+	 */
+	@Override
+	public JsonStreamSource createJsonStreamSource(Reader reader, boolean trackLocation, int chunkSize) {
+		Yylex scanner = new Yylex(reader);
+		scanner.setTrackLocation(trackLocation);
+		scanner.setChunkSize(chunkSize);
+		return new JsonStreamSourceImpl(scanner, false, names);
+	}
+
+	@Override
+	public boolean supportsNonBlocking() {
+		return true;
 	}
 
+	/**
+	 * Create non-blocking stream source.
+	 * The fed input is expected to be UTF-8 encoded.
+	 * @return non-blocking stream source
+	 */
 	@Override
-	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty) throws IOException {
-		return createJsonStreamTarget(new OutputStreamWriter(output, "UTF-8"), pretty);
+	public NonBlockingJsonStreamSource createNonBlockingJsonStreamSource() {
+		return new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), names);
+	}
+
+	/**
+	 * Answer the split stored with a canonical field name.
+	 */
+	public String[] getNameParts(String name, int start, char separator) {
+		return names == null ? null : names.getParts(name, start, separator);
+	}
+
+	/**
+	 * Store the split with a canonical field name, so it is shared by all sources.
+	 */
+	public void putNameParts(String name, int start, char separator, String[] parts) {
+		if (names != null) {
+			names.putParts(name, start, separator, parts);
+		}
+	}
+
+	/**
+	 * Create stream target.
+	 * The output will be UTF-8 encoded and written directly as bytes, without going
+	 * through an <code>OutputStreamWriter</code>.
+	 * @param output
+	 * @param pretty
+	 * @return stream target
+	 */
+	@Override
+	public JsonStreamTarget createJsonStreamTarget(OutputStream output, boolean pretty) {
+		return createJsonStreamTarget(new Utf8Output(output, false), pretty);
 	}
 	
 	@Override
 	public JsonStreamTarget createJsonStreamTarget(Writer writer, boolean pretty) {
+		return createJsonStreamTarget(new JsonStreamTargetImpl.WriterOutput(writer, false), pretty);
+	}
+
+	private JsonStreamTarget createJsonStreamTarget(JsonStreamTargetImpl.Output output, boolean pretty) {
 		if (pretty) {
-			return new JsonStreamTargetImpl(writer, false, prettySpace, prettyIndent, prettyNewline);
+			return new JsonStreamTargetImpl(output, prettyEncodedNames, prettySpace, prettyIndent, prettyNewline);
 		} else {
-			return new JsonStreamTargetImpl(writer, false);
+			return new JsonStreamTargetImpl(output, encodedNames, null, null, null);
 		}
 	}
 }
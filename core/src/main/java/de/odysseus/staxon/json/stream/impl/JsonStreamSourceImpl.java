@@ -17,8 +17,7 @@ package de.odysseus.staxon.json.stream.impl;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.util.Arrays;
 
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
@@ -39,6 +38,10 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		    COLON,
 		    COMMA,
 		    STRING,
+		    /**
+		     * leading chunk of a string (chunked mode only), continued by the next symbol
+		     */
+		    STRING_CHUNK,
 		    NUMBER,
 		    TRUE,
 		    FALSE,
@@ -47,29 +50,60 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		}
 		Symbol nextSymbol() throws IOException;
 		String getText();
+		/**
+		 * Answer current string or number text without creating a string.
+		 * The slice is only valid until the next call to {@link #nextSymbol()}.
+		 * @return text slice or <code>null</code> if current symbol is neither string nor number
+		 */
+		CharSlice getTextSlice();
+		/**
+		 * Skip the current array or object without decoding its content.
+		 * Must be called right after a {@link Symbol#START_ARRAY} or {@link Symbol#START_OBJECT} symbol.
+		 * Nesting and string literals are tracked, but the skipped content is not validated.
+		 * @return closing symbol ({@link Symbol#END_ARRAY} or {@link Symbol#END_OBJECT}) or {@link Symbol#EOF}
+		 */
+		Symbol skipStructure() throws IOException;
 
 		int getCharOffset();
+		/**
+		 * @return zero-based line number or <code>-1</code> if lines are not tracked
+		 */
 		int getLineNumber();
+		/**
+		 * @return zero-based column number or <code>-1</code> if columns are not tracked
+		 */
 		int getColumnNumber();
 	}
 	
 	private final Scanner scanner;
-	private final boolean[] arrays = new boolean[64];
+	private boolean[] arrays = new boolean[64];
 	private final boolean closeScanner;
+	private final NameTable names;
 
 	private JsonStreamToken token = null;
 	private Scanner.Symbol symbol = null;
 	private int depth = 0;
 	private boolean peeked = false;
+	private Scanner.Symbol skipping = null;
 
 	private int lineNumber;
 	private int columnNumber;
 	private int charOffset;
+
+	/*
+	 * chunked name joined by joinChunks()
+	 */
+	private String joinedName;
 	
 	
 	JsonStreamSourceImpl(Scanner scanner, boolean closeScanner) {
+		this(scanner, closeScanner, null);
+	}
+
+	JsonStreamSourceImpl(Scanner scanner, boolean closeScanner, NameTable names) {
 		this.scanner = scanner;
 		this.closeScanner = closeScanner;
+		this.names = names;
 		this.lineNumber = scanner.getLineNumber();
 		this.columnNumber = scanner.getColumnNumber();
 		this.charOffset = scanner.getCharOffset();
@@ -82,6 +116,7 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		case NUMBER:
 		case TRUE:
 		case STRING:
+		case STRING_CHUNK:
 			return JsonStreamToken.VALUE;
 		case START_ARRAY:
 			if (arrays[depth]) {
@@ -90,7 +125,9 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 			arrays[depth] = true;
 			return JsonStreamToken.START_ARRAY;
 		case START_OBJECT:
-			depth++;
+			if (++depth == arrays.length) {
+				arrays = Arrays.copyOf(arrays, 2 * depth);
+			}
 			return JsonStreamToken.START_OBJECT;
 		default:
 			throw new IOException("Unexpected symbol: " + symbol);
@@ -103,7 +140,27 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		}		
 	}
 
+	/*
+	 * names are never chunked: join name chunks into joinedName
+	 */
+	private JsonStreamToken joinChunks() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		while (symbol == Scanner.Symbol.STRING_CHUNK) {
+			CharSlice chunk = scanner.getTextSlice();
+			builder.append(chunk.array(), chunk.offset(), chunk.length());
+			symbol = scanner.nextSymbol();
+		}
+		require(Scanner.Symbol.STRING);
+		CharSlice last = scanner.getTextSlice();
+		joinedName = builder.append(last.array(), last.offset(), last.length()).toString();
+		return JsonStreamToken.NAME;
+	}
+
 	private JsonStreamToken next() throws IOException {
+		if (symbol == Scanner.Symbol.STRING_CHUNK && token == JsonStreamToken.VALUE) { // string continues
+			symbol = scanner.nextSymbol();
+			return JsonStreamToken.VALUE;
+		}
 		symbol = scanner.nextSymbol();
 		if (symbol == Scanner.Symbol.EOF) {
 			if (depth != 0 || arrays[depth]) {
@@ -127,6 +184,8 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 				symbol = scanner.nextSymbol();
 				if (arrays[depth]) {
 					return startJsonValue();
+				} else if (symbol == Scanner.Symbol.STRING_CHUNK) {
+					return joinChunks();
 				} else {
 					require(Scanner.Symbol.STRING);
 					return JsonStreamToken.NAME;
@@ -156,6 +215,8 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 				return JsonStreamToken.END_OBJECT;
 			case STRING:
 				return JsonStreamToken.NAME;
+			case STRING_CHUNK:
+				return joinChunks();
 			default:
 				throw new IOException("Unexpected symbol: " + symbol);
 			}
@@ -198,7 +259,23 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 	@Override
 	public String name() throws IOException {
 		poll(JsonStreamToken.NAME);
-		return scanner.getText();
+		if (joinedName != null) {
+			String result = joinedName;
+			joinedName = null;
+			return result;
+		}
+		return names != null ? names.lookup(scanner.getTextSlice()) : scanner.getText();
+	}
+
+	private static boolean isInteger(CharSlice number) {
+		char[] array = number.array();
+		for (int i = number.offset(), end = i + number.length(); i < end; i++) {
+			char c = array[i];
+			if (c == '.' || c == 'e' || c == 'E') {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	@Override
@@ -208,22 +285,158 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 		case NULL:
 			return NULL;
 		case STRING:
+		case STRING_CHUNK:
 			return new Value(scanner.getText());
 		case TRUE:
 			return TRUE;
 		case FALSE:
 			return FALSE;
 		case NUMBER:
-			if (scanner.getText().indexOf('.') < 0 && scanner.getText().toLowerCase().indexOf('e') < 0) {
-				return new Value(scanner.getText(), new BigInteger(scanner.getText()));
-			} else {
-				return new Value(scanner.getText(), new BigDecimal(scanner.getText()));
-			}
+			return new Value(scanner.getText(), isInteger(scanner.getTextSlice()));
 		default:
 			throw new IOException("Not a value token: " + symbol);
 		}
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		if (peek() != JsonStreamToken.VALUE) {
+			throw new IOException("Not a value token: " + peek());
+		}
+		switch (symbol) {
+		case STRING:
+			return ValueType.STRING;
+		case STRING_CHUNK:
+			return ValueType.STRING_CHUNK;
+		case NUMBER:
+			return ValueType.NUMBER;
+		case TRUE:
+		case FALSE:
+			return ValueType.BOOLEAN;
+		default:
+			return ValueType.NULL;
+		}
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		poll(JsonStreamToken.VALUE);
+		return symbol == Scanner.Symbol.NULL ? null : scanner.getText();
+	}
+
+	private CharSlice number() throws IOException {
+		poll(JsonStreamToken.VALUE);
+		if (symbol != Scanner.Symbol.NUMBER) {
+			throw new IOException("Not a number: " + symbol);
+		}
+		return scanner.getTextSlice();
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		CharSlice number = number();
+		if (number.length() < 19 && isInteger(number)) { // fits into a long, parse without creating a string
+			char[] array = number.array();
+			int index = number.offset();
+			int end = index + number.length();
+			boolean negative = array[index] == '-';
+			if (negative) {
+				index++;
+			}
+			long result = 0;
+			while (index < end) {
+				result = 10 * result + (array[index++] - '0');
+			}
+			return negative ? -result : result;
+		}
+		try {
+			return new Value(scanner.getText(), isInteger(number)).longValue();
+		} catch (NumberFormatException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		number();
+		return Double.parseDouble(scanner.getText());
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		poll(JsonStreamToken.VALUE);
+		switch (symbol) {
+		case TRUE:
+			return true;
+		case FALSE:
+			return false;
+		default:
+			throw new IOException("Not a boolean: " + symbol);
+		}
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		poll(JsonStreamToken.VALUE);
+		if (symbol != Scanner.Symbol.NULL) {
+			throw new IOException("Not null: " + symbol);
+		}
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case VALUE:
+			poll(JsonStreamToken.VALUE);
+			while (symbol == Scanner.Symbol.STRING_CHUNK) { // skip remaining chunks
+				poll(JsonStreamToken.VALUE);
+			}
+			break;
+		case START_OBJECT:
+			poll(JsonStreamToken.START_OBJECT);
+			skipping = Scanner.Symbol.END_OBJECT;
+			skipStructure();
+			break;
+		case START_ARRAY:
+			poll(JsonStreamToken.START_ARRAY);
+			skipping = Scanner.Symbol.END_ARRAY;
+			skipStructure();
+			break;
+		default:
+			throw new IOException("Not a value token: " + peek());
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if an object or array skip is pending
+	 */
+	boolean isSkipping() {
+		return skipping != null;
+	}
+
+	/**
+	 * Skip (rest of) current object or array, as initiated by {@link #skipValue()}.
+	 * @throws IOException
+	 */
+	void skipStructure() throws IOException {
+		symbol = scanner.skipStructure();
+		if (symbol == Scanner.Symbol.EOF) {
+			throw new IOException("Premature EOF");
+		}
+		require(skipping);
+		if (skipping == Scanner.Symbol.END_OBJECT) {
+			depth--;
+			token = JsonStreamToken.END_OBJECT;
+		} else {
+			arrays[depth] = false;
+			token = JsonStreamToken.END_ARRAY;
+		}
+		skipping = null;
+		lineNumber = scanner.getLineNumber();
+		columnNumber = scanner.getColumnNumber();
+		charOffset = scanner.getCharOffset();
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		poll(JsonStreamToken.START_OBJECT);
@@ -255,12 +468,12 @@ class JsonStreamSourceImpl implements JsonStreamSource {
 	
 	@Override
 	public int getLineNumber() {
-		return lineNumber + 1;
+		return lineNumber < 0 ? -1 : lineNumber + 1;
 	}
 	
 	@Override
 	public int getColumnNumber() {
-		return columnNumber + 1;
+		return columnNumber < 0 ? -1 : columnNumber + 1;
 	}
 	
 	@Override
@@ -15,34 +15,159 @@
  */
 package de.odysseus.staxon.json.stream.impl;
 
+import java.io.Closeable;
+import java.io.Flushable;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Writer;
+import java.util.Arrays;
 
 import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.impl.EncodedNameTable.EncodedName;
 
 /**
  * Default <code>JsonStreamTarget</code> implementation.
  */
 class JsonStreamTargetImpl implements JsonStreamTarget {
-	private final Writer writer;
-	private final int[] namePos = new int[64];
-	private final int[] arrayPos = new int[64];
-	private final StringBuilder buffer = new StringBuilder();
-	private final boolean closeWriter;
+	/**
+	 * Output interface
+	 */
+	interface Output extends Closeable, Flushable {
+		void write(char c) throws IOException;
+		void write(String s) throws IOException;
+		/**
+		 * Write string literal content, escaping characters as required by JSON.
+		 */
+		void writeEscaped(String s) throws IOException;
+		/**
+		 * Write encoded field name.
+		 */
+		void write(EncodedName name) throws IOException;
+	}
+
+	/**
+	 * Escape sequences for ASCII characters (<code>null</code> if a character needs no escaping).
+	 */
+	static final char[][] ESCAPES = new char[128][];
+	static {
+		char[] hex = "0123456789ABCDEF".toCharArray();
+		for (int c = 0; c < ' '; c++) {
+			ESCAPES[c] = new char[]{ '\\', 'u', '0', '0', hex[c >> 4], hex[c & 0xF] };
+		}
+		ESCAPES['"'] = new char[]{ '\\', '"' };
+		ESCAPES['\\'] = new char[]{ '\\', '\\' };
+		ESCAPES['\b'] = new char[]{ '\\', 'b' };
+		ESCAPES['\f'] = new char[]{ '\\', 'f' };
+		ESCAPES['\n'] = new char[]{ '\\', 'n' };
+		ESCAPES['\r'] = new char[]{ '\\', 'r' };
+		ESCAPES['\t'] = new char[]{ '\\', 't' };
+	}
+
+	/**
+	 * Writer output. Runs of characters without escapes are written in bulk.
+	 */
+	static final class WriterOutput implements Output {
+		private final Writer writer;
+		private final boolean closeWriter;
+
+		WriterOutput(Writer writer, boolean closeWriter) {
+			this.writer = writer;
+			this.closeWriter = closeWriter;
+		}
+
+		@Override
+		public void write(char c) throws IOException {
+			writer.write(c);
+		}
+
+		@Override
+		public void write(String s) throws IOException {
+			writer.write(s);
+		}
+
+		@Override
+		public void writeEscaped(String s) throws IOException {
+			int start = 0;
+			for (int i = 0, length = s.length(); i < length; i++) {
+				char c = s.charAt(i);
+				if (c < 128 && ESCAPES[c] != null) {
+					if (i > start) {
+						writer.write(s, start, i - start);
+					}
+					writer.write(ESCAPES[c]);
+					start = i + 1;
+				}
+			}
+			if (start == 0) {
+				writer.write(s);
+			} else if (start < s.length()) {
+				writer.write(s, start, s.length() - start);
+			}
+		}
+
+		@Override
+		public void write(EncodedName name) throws IOException {
+			writer.write(name.chars);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			writer.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closeWriter) {
+				writer.close();
+			} else {
+				writer.flush();
+			}
+		}
+	}
+
+	private final Output writer;
+	private final EncodedNameTable names;
+	private int[] namePos = new int[64];
+	private int[] arrayPos = new int[64];
 	
-	private final String[] indent;
+	private String[] indent;
+	private final String prettyIndent;
 	private final String space;
 
 	private int depth = 0;
+	private boolean inString = false;
+	private String highSurrogate = null; // trailing high surrogate of previous chunk
 
 	JsonStreamTargetImpl(Writer writer, boolean closeWriter) {
 		this(writer, closeWriter, null, null, null);
 	}
 
 	JsonStreamTargetImpl(Writer writer, boolean closeWriter, String prettySpace, String prettyIndent, String prettyNewline) {
-		this.writer = writer;
-		this.closeWriter = closeWriter;
+		this(new WriterOutput(writer, closeWriter), null, prettySpace, prettyIndent, prettyNewline);
+	}
+
+	JsonStreamTargetImpl(OutputStream stream, boolean closeStream) {
+		this(stream, closeStream, null, null, null);
+	}
+
+	/**
+	 * Create target writing UTF-8 encoded bytes to the given stream.
+	 */
+	JsonStreamTargetImpl(OutputStream stream, boolean closeStream, String prettySpace, String prettyIndent, String prettyNewline) {
+		this(new Utf8Output(stream, closeStream), null, prettySpace, prettyIndent, prettyNewline);
+	}
+
+	/**
+	 * Create target.
+	 * @param output output
+	 * @param names encoded name table, which must match <code>prettySpace</code>;
+	 * if <code>null</code>, names are written directly
+	 */
+	JsonStreamTargetImpl(Output output, EncodedNameTable names, String prettySpace, String prettyIndent, String prettyNewline) {
+		this.writer = output;
+		this.names = names;
 		this.space = prettySpace;
+		this.prettyIndent = prettyIndent;
 		
 		if (prettyIndent != null || prettyNewline != null) {
 			this.indent = new String[64];
@@ -60,51 +185,24 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 			this.indent = null;
 		}
 	}
-	
-	private String encode(String value) {
-		buffer.setLength(0);
-		for (int i = 0; i < value.length(); i++) {
-			char c = value.charAt(i);
-			switch (c) {
-			case '"':
-				buffer.append("\\\"");
-				break;
-			case '\\':
-				buffer.append("\\\\");
-				break;
-			case '\b':
-				buffer.append("\\b");
-				break;
-			case '\f':
-				buffer.append("\\f");
-				break;
-			case '\n':
-				buffer.append("\\n");
-				break;
-			case '\r':
-				buffer.append("\\r");
-				break;
-			case '\t':
-				buffer.append("\\t");
-				break;
-			default:
-				if (c < ' ') {
-					buffer.append(String.format("\\u%04X", (int) c));
-				} else {
-					buffer.append(c);
-				}
+
+	/*
+	 * indentation for given depth, generated on demand beyond the precomputed levels
+	 */
+	private String indent(int depth) {
+		if (depth >= indent.length) {
+			int length = indent.length;
+			indent = Arrays.copyOf(indent, Math.max(2 * length, depth + 1));
+			for (int i = length; i < indent.length; i++) {
+				indent[i] = prettyIndent != null ? indent[i - 1] + prettyIndent : indent[i - 1];
 			}
 		}
-		return buffer.toString();
+		return indent[depth];
 	}
 
 	@Override
 	public void close() throws IOException {
-		if (closeWriter) {
-			writer.close();
-		} else {
-			writer.flush();
-		}
+		writer.close();
 	}
 
 	@Override
@@ -119,21 +217,28 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		}
 		namePos[depth]++;
 		if (indent != null) {
-			writer.write(indent[depth]);
+			writer.write(indent(depth));
 		} else if (space != null) {
 			writer.write(space);
 		}
-		writer.write('"');
-		writer.write(name);
-		writer.write('"');
-		if (space != null) {
-			writer.write(space);
+		EncodedName encoded = names == null ? null : names.lookup(name);
+		if (encoded != null) {
+			writer.write(encoded);
+		} else {
+			writer.write('"');
+			writer.writeEscaped(name);
+			writer.write('"');
+			if (space != null) {
+				writer.write(space);
+			}
+			writer.write(':');
 		}
-		writer.write(':');
 	}
 
-	@Override
-	public void value(Object value) throws IOException {
+	/*
+	 * separator and space before a value
+	 */
+	private void startValue() throws IOException {
 		if (arrayPos[depth] > 0) {
 			if (arrayPos[depth] > 1) {
 				writer.write(',');
@@ -143,17 +248,58 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		if (space != null) {
 			writer.write(space);
 		}
+	}
+
+	@Override
+	public void value(Object value) throws IOException {
+		if (inString) { // last chunk
+			if (!(value instanceof String)) {
+				throw new IOException("Cannot complete string with: " + value);
+			}
+			writer.writeEscaped(joinSurrogate((String) value));
+			writer.write('"');
+			inString = false;
+			return;
+		}
+		startValue();
 		if (value == null) {
 			writer.write("null");
 		} else if (value instanceof String) {
 			writer.write('"');
-			writer.write(encode((String) value));
+			writer.writeEscaped((String) value);
 			writer.write('"');
 		} else {
 			writer.write(value.toString());
 		}
 	}
 
+	/**
+	 * Write chunk directly to the output, the string stays open until the next value.
+	 */
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		if (!inString) {
+			startValue();
+			writer.write('"');
+			inString = true;
+		}
+		chunk = joinSurrogate(chunk);
+		int last = chunk.length() - 1;
+		if (last >= 0 && Character.isHighSurrogate(chunk.charAt(last))) { // keep pair together
+			highSurrogate = chunk.substring(last);
+			chunk = chunk.substring(0, last);
+		}
+		writer.writeEscaped(chunk);
+	}
+
+	private String joinSurrogate(String chunk) {
+		if (highSurrogate != null) {
+			chunk = highSurrogate + chunk;
+			highSurrogate = null;
+		}
+		return chunk;
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		if (arrayPos[depth] > 0) {
@@ -166,7 +312,10 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 			writer.write(space);
 		}
 		writer.write('{');
-		depth++;
+		if (++depth == namePos.length) {
+			namePos = Arrays.copyOf(namePos, 2 * depth);
+			arrayPos = Arrays.copyOf(arrayPos, 2 * depth);
+		}
 		namePos[depth] = 1;
 	}
 
@@ -175,7 +324,7 @@ class JsonStreamTargetImpl implements JsonStreamTarget {
 		namePos[depth] = 0;
 		depth--;
 		if (indent != null) {
-			writer.write(indent[depth]);
+			writer.write(indent(depth));
 		} else if (space != null) {
 			writer.write(space);
 		}
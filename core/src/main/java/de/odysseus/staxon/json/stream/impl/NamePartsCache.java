@@ -0,0 +1,43 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+/**
+ * Cache for prefix/local name splits of field names, kept with the canonical
+ * names of a stream factory and shared by all of its sources.
+ * <p>This is an internal hook between {@link JsonStreamFactoryImpl} and the
+ * JSON stream reader; it is not part of the public stream factory API.</p>
+ */
+public interface NamePartsCache {
+	/**
+	 * Answer the prefix/local name split of a field name, as stored by
+	 * {@link #putNameParts(String, int, char, String[])}.
+	 * @param name field name as returned by a source of this factory
+	 * @param start start index of the qualified name (e.g. after an attribute prefix)
+	 * @param separator namespace prefix separator
+	 * @return <code>{ prefix, localName }</code> (must not be modified) or <code>null</code>
+	 */
+	public String[] getNameParts(String name, int start, char separator);
+
+	/**
+	 * Store the prefix/local name split of a field name.
+	 * @param name field name as returned by a source of this factory
+	 * @param start start index of the qualified name
+	 * @param separator namespace prefix separator
+	 * @param parts <code>{ prefix, localName }</code>
+	 */
+	public void putNameParts(String name, int start, char separator, String[] parts);
+}
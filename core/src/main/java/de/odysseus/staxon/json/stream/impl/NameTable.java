@@ -0,0 +1,177 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+/**
+ * Bounded symbol table used to canonicalize field names.
+ *
+ * <p>Names are looked up by their scanned characters, so a name that has been seen
+ * before is returned as the same (interned) string instance without creating a new one.
+ * Lookups are lock-free, insertions are synchronized. Once the table is full, new
+ * names are no longer added but returned as fresh strings.</p>
+ *
+ * <p>Each canonical name may carry its prefix/local name split, so the split is
+ * computed once per table rather than once per document.</p>
+ */
+final class NameTable {
+	private static final class NameParts {
+		final int start;
+		final char separator;
+		final String[] parts;
+
+		NameParts(int start, char separator, String[] parts) {
+			this.start = start;
+			this.separator = separator;
+			this.parts = parts;
+		}
+	}
+
+	private static final class Entry {
+		final String name;
+		final int hash;
+		final Entry next;
+		volatile NameParts parts;
+
+		Entry(String name, int hash, Entry next) {
+			this.name = name;
+			this.hash = hash;
+			this.next = next;
+		}
+	}
+
+	private final Entry[] buckets;
+	private final int maxSize;
+	private int size = 0;
+
+	/**
+	 * Create table.
+	 * @param maxSize maximum number of names
+	 */
+	NameTable(int maxSize) {
+		int capacity = 16;
+		while (capacity < maxSize) {
+			capacity <<= 1;
+		}
+		this.buckets = new Entry[capacity];
+		this.maxSize = maxSize;
+	}
+
+	private static int hash(char[] array, int offset, int length) {
+		int hash = 0;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			hash = 31 * hash + array[i];
+		}
+		return hash;
+	}
+
+	private static boolean matches(String name, char[] array, int offset, int length) {
+		if (name.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (name.charAt(i) != array[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String find(Entry entry, int hash, char[] array, int offset, int length) {
+		while (entry != null) {
+			if (entry.hash == hash && matches(entry.name, array, offset, length)) {
+				return entry.name;
+			}
+			entry = entry.next;
+		}
+		return null;
+	}
+
+	/**
+	 * Answer canonical name for the given slice.
+	 * @param slice name characters
+	 * @return name string
+	 */
+	String lookup(CharSlice slice) {
+		char[] array = slice.array();
+		int offset = slice.offset();
+		int length = slice.length();
+		int hash = hash(array, offset, length);
+		int index = hash & (buckets.length - 1);
+		String name = find(buckets[index], hash, array, offset, length);
+		if (name == null) {
+			synchronized (this) {
+				name = find(buckets[index], hash, array, offset, length);
+				if (name == null) {
+					name = new String(array, offset, length);
+					if (size < maxSize) {
+						name = name.intern();
+						buckets[index] = new Entry(name, hash, buckets[index]);
+						size++;
+					}
+				}
+			}
+		}
+		return name;
+	}
+
+	/*
+	 * Answer entry of a canonical name (by identity).
+	 */
+	private Entry entry(String name) {
+		Entry entry = buckets[name.hashCode() & (buckets.length - 1)]; // same hash as hash(char[],...)
+		while (entry != null && entry.name != name) {
+			entry = entry.next;
+		}
+		return entry;
+	}
+
+	/**
+	 * Answer the split stored with a canonical name.
+	 * @param name canonical name
+	 * @param start start index of the qualified name
+	 * @param separator namespace prefix separator
+	 * @return <code>{ prefix, localName }</code> or <code>null</code>
+	 */
+	String[] getParts(String name, int start, char separator) {
+		Entry entry = entry(name);
+		NameParts parts = entry == null ? null : entry.parts;
+		if (parts != null && parts.start == start && parts.separator == separator) {
+			return parts.parts;
+		}
+		return null;
+	}
+
+	/**
+	 * Store split with a canonical name. Names not in this table are ignored.
+	 * @param name canonical name
+	 * @param start start index of the qualified name
+	 * @param separator namespace prefix separator
+	 * @param parts <code>{ prefix, localName }</code>
+	 */
+	void putParts(String name, int start, char separator, String[] parts) {
+		Entry entry = entry(name);
+		if (entry != null) {
+			entry.parts = new NameParts(start, separator, parts);
+		}
+	}
+
+	/**
+	 * @return number of names in this table
+	 */
+	synchronized int size() {
+		return size;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.NonBlockingJsonStreamSource;
+
+/**
+ * Non-blocking <code>JsonStreamSource</code> implementation, backed by a fed {@link Utf8Scanner}.
+ * A token is scanned from a mark; if input runs dry, the scanner is reset to that mark and
+ * {@link JsonStreamToken#NOT_AVAILABLE} is reported. A partially scanned string is kept by the scanner
+ * and continued after the next feed. Skipping a structure resumes where it stopped, when
+ * {@link #skipValue()} or {@link #peek()} is called after more input has been fed.
+ */
+final class NonBlockingJsonStreamSourceImpl extends JsonStreamSourceImpl implements NonBlockingJsonStreamSource {
+	private final Utf8Scanner scanner;
+
+	NonBlockingJsonStreamSourceImpl(Utf8Scanner scanner, NameTable names) {
+		super(scanner, true, names);
+		this.scanner = scanner;
+	}
+
+	@Override
+	public void feed(ByteBuffer input) throws IOException {
+		scanner.feed(input);
+	}
+
+	@Override
+	public void endOfInput() {
+		scanner.endOfInput();
+	}
+
+	@Override
+	public JsonStreamToken peek() throws IOException {
+		if (isSkipping()) {
+			try {
+				skipStructure();
+			} catch (Utf8Scanner.NotAvailableException e) {
+				return JsonStreamToken.NOT_AVAILABLE;
+			}
+		}
+		scanner.mark();
+		try {
+			JsonStreamToken result = super.peek();
+			scanner.unmark();
+			return result;
+		} catch (Utf8Scanner.NotAvailableException e) {
+			scanner.reset();
+			return JsonStreamToken.NOT_AVAILABLE;
+		}
+	}
+
+	/**
+	 * Skip the next value. If input runs dry, the scanner's "not available" exception is
+	 * thrown and a started skip is kept pending, to be continued by the next call.
+	 */
+	@Override
+	public void skipValue() throws IOException {
+		if (isSkipping()) { // continue pending skip
+			skipStructure();
+		} else if (peek() == JsonStreamToken.NOT_AVAILABLE) {
+			throw Utf8Scanner.NOT_AVAILABLE;
+		} else {
+			super.skipValue();
+		}
+	}
+}
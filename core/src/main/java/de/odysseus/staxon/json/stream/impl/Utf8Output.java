@@ -0,0 +1,159 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import de.odysseus.staxon.json.stream.impl.EncodedNameTable.EncodedName;
+
+/**
+ * Output encoding characters directly to UTF-8 bytes.
+ *
+ * <p>In contrast to an <code>OutputStreamWriter</code>, bytes are collected in a reusable
+ * buffer, which is passed to the stream in large chunks. Malformed surrogates are
+ * replaced by <code>'?'</code>.</p>
+ */
+final class Utf8Output implements JsonStreamTargetImpl.Output {
+	private static final int BUFFER_SIZE = 8192;
+
+	private final OutputStream stream;
+	private final boolean closeStream;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	private int position = 0;
+
+	Utf8Output(OutputStream stream, boolean closeStream) {
+		this.stream = stream;
+		this.closeStream = closeStream;
+	}
+
+	private void flushBuffer() throws IOException {
+		if (position > 0) {
+			stream.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	/*
+	 * encode non-ASCII character at index, answer index of last consumed character
+	 */
+	private int encode(String s, int index) throws IOException {
+		if (position > BUFFER_SIZE - 4) {
+			flushBuffer();
+		}
+		char c = s.charAt(index);
+		if (c < 0x800) {
+			buffer[position++] = (byte) (0xC0 | (c >> 6));
+			buffer[position++] = (byte) (0x80 | (c & 0x3F));
+		} else if (c < Character.MIN_SURROGATE || c > Character.MAX_SURROGATE) {
+			buffer[position++] = (byte) (0xE0 | (c >> 12));
+			buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+			buffer[position++] = (byte) (0x80 | (c & 0x3F));
+		} else if (c <= Character.MAX_HIGH_SURROGATE && index + 1 < s.length() && Character.isLowSurrogate(s.charAt(index + 1))) {
+			int codePoint = Character.toCodePoint(c, s.charAt(++index));
+			buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+			buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+			buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+			buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+		} else {
+			buffer[position++] = '?';
+		}
+		return index;
+	}
+
+	@Override
+	public void write(char c) throws IOException {
+		if (c < 0x80) {
+			if (position == BUFFER_SIZE) {
+				flushBuffer();
+			}
+			buffer[position++] = (byte) c;
+		} else {
+			encode(String.valueOf(c), 0);
+		}
+	}
+
+	@Override
+	public void write(String s) throws IOException {
+		for (int i = 0, length = s.length(); i < length; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				if (position == BUFFER_SIZE) {
+					flushBuffer();
+				}
+				buffer[position++] = (byte) c;
+			} else {
+				i = encode(s, i);
+			}
+		}
+	}
+
+	@Override
+	public void writeEscaped(String s) throws IOException {
+		for (int i = 0, length = s.length(); i < length; i++) {
+			char c = s.charAt(i);
+			if (c < 0x80) {
+				char[] escape = JsonStreamTargetImpl.ESCAPES[c];
+				if (escape == null) {
+					if (position == BUFFER_SIZE) {
+						flushBuffer();
+					}
+					buffer[position++] = (byte) c;
+				} else {
+					if (position > BUFFER_SIZE - escape.length) {
+						flushBuffer();
+					}
+					for (char e : escape) {
+						buffer[position++] = (byte) e;
+					}
+				}
+			} else {
+				i = encode(s, i);
+			}
+		}
+	}
+
+	@Override
+	public void write(EncodedName name) throws IOException {
+		byte[] bytes = name.bytes();
+		if (position > BUFFER_SIZE - bytes.length) {
+			flushBuffer();
+			if (bytes.length > BUFFER_SIZE) {
+				stream.write(bytes);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, buffer, position, bytes.length);
+		position += bytes.length;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		stream.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		if (closeStream) {
+			stream.close();
+		} else {
+			stream.flush();
+		}
+	}
+}
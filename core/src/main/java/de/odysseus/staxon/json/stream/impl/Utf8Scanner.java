@@ -0,0 +1,750 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Scanner working directly on UTF-8 encoded bytes.
+ *
+ * <p>In contrast to the generated {@link Yylex} scanner, this scanner does not need a
+ * <code>Reader</code>. Structural characters, literals and numbers are recognized
+ * on their (ASCII) bytes, decoding is only done inside string literals.</p>
+ *
+ * <p>A scanner created without an input stream is fed via {@link #feed(ByteBuffer)}.
+ * If it runs out of input, {@link #NOT_AVAILABLE} is thrown; the caller may then
+ * {@link #reset()} to the last {@link #mark()} and retry when more input has been fed.</p>
+ *
+ * <p>Location information follows {@link Yylex}: the position of a string token is the
+ * position of its closing quote, all other tokens report their first character.</p>
+ *
+ * <p>If a chunk size is given, strings are delivered as a sequence of
+ * {@link Symbol#STRING_CHUNK} symbols of about that length, followed by a final
+ * {@link Symbol#STRING}. Surrogate pairs are never split.</p>
+ */
+final class Utf8Scanner implements JsonStreamSourceImpl.Scanner {
+	/**
+	 * Thrown by a fed scanner if more input is needed.
+	 */
+	static final class NotAvailableException extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		private NotAvailableException() {
+			super("Input not available");
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
+
+	static final NotAvailableException NOT_AVAILABLE = new NotAvailableException();
+
+	static final int BUFFER_SIZE = 8192;
+
+	private final InputStream input;
+	private final int chunkSize;
+	private final boolean trackLocation;
+	private byte[] buffer;
+
+	private int position = 0;
+	private int limit = 0;
+	private boolean eof = false;
+	private boolean started = false;
+	private boolean endOfInput = false;
+	private boolean inString = false;
+
+	/*
+	 * marked state (fed scanner)
+	 */
+	private int mark = -1;
+	private int markOffset;
+	private int markLine;
+	private int markLineStart;
+	private boolean markCarriageReturn;
+	private boolean markStarted;
+
+	/*
+	 * partial string state (fed scanner), kept across NOT_AVAILABLE: when the string
+	 * starting at resumeStart is scanned again, scanning continues at resumePosition
+	 */
+	private int resumeStart = -1;
+	private int resumePosition;
+	private int resumeOffset;
+	private int resumeLength;
+	private char[] resumeChars;
+
+	/*
+	 * skip state
+	 */
+	private int skipDepth = 0;
+	private boolean skipString = false;
+	private boolean skipEscape = false;
+
+	private char[] chars = new char[128];
+	private int length = 0;
+	private final CharSlice slice = new CharSlice();
+	private boolean sliced = false;
+	private String text = null;
+
+	/*
+	 * current location (zero-based)
+	 */
+	private int offset = 0;
+	private int line = 0;
+	private int lineStart = 0;
+	private boolean carriageReturn = false;
+
+	/*
+	 * token location (zero-based)
+	 */
+	private int tokenOffset = 0;
+	private int tokenLine = 0;
+	private int tokenColumn = 0;
+
+	Utf8Scanner(InputStream input) {
+		this(input, BUFFER_SIZE);
+	}
+
+	Utf8Scanner(InputStream input, int bufferSize) {
+		this(input, bufferSize, 0);
+	}
+
+	/**
+	 * Create scanner.
+	 * @param input input stream
+	 * @param bufferSize byte buffer size
+	 * @param chunkSize string chunk size (<code>0</code> means do not split strings)
+	 */
+	Utf8Scanner(InputStream input, int bufferSize, int chunkSize) {
+		this(input, bufferSize, chunkSize, true);
+	}
+
+	/**
+	 * Create scanner.
+	 * @param input input stream
+	 * @param bufferSize byte buffer size
+	 * @param chunkSize string chunk size (<code>0</code> means do not split strings)
+	 * @param trackLocation whether to track line and column numbers (reported as <code>-1</code> if not)
+	 */
+	Utf8Scanner(InputStream input, int bufferSize, int chunkSize, boolean trackLocation) {
+		this.input = input;
+		this.buffer = new byte[bufferSize];
+		this.chunkSize = chunkSize;
+		this.trackLocation = trackLocation;
+	}
+
+	/**
+	 * Create scanner to be fed via {@link #feed(ByteBuffer)}.
+	 */
+	Utf8Scanner() {
+		this(null, BUFFER_SIZE);
+	}
+
+	/**
+	 * Append input. Bytes before the current mark (or position) are discarded.
+	 * @param bytes input
+	 */
+	void feed(ByteBuffer bytes) {
+		if (endOfInput) {
+			throw new IllegalStateException("End of input has been signaled");
+		}
+		int keep = mark < 0 ? position : mark;
+		int count = limit - keep;
+		int required = count + bytes.remaining();
+		if (required > buffer.length) {
+			byte[] newBuffer = new byte[Math.max(required, 2 * buffer.length)];
+			System.arraycopy(buffer, keep, newBuffer, 0, count);
+			buffer = newBuffer;
+		} else if (keep > 0) {
+			System.arraycopy(buffer, keep, buffer, 0, count);
+		}
+		position -= keep;
+		if (mark >= 0) {
+			mark -= keep;
+		}
+		if (resumeStart >= keep) {
+			resumeStart -= keep;
+			resumePosition -= keep;
+		} else {
+			resumeStart = -1;
+		}
+		limit = count + bytes.remaining();
+		bytes.get(buffer, count, bytes.remaining());
+	}
+
+	/**
+	 * Signal end of input.
+	 */
+	void endOfInput() {
+		endOfInput = true;
+	}
+
+	/**
+	 * Remember current state.
+	 */
+	void mark() {
+		mark = position;
+		markOffset = offset;
+		markLine = line;
+		markLineStart = lineStart;
+		markCarriageReturn = carriageReturn;
+		markStarted = started;
+	}
+
+	/**
+	 * Restore state saved by last call to {@link #mark()}.
+	 */
+	void reset() {
+		position = mark;
+		offset = markOffset;
+		line = markLine;
+		lineStart = markLineStart;
+		carriageReturn = markCarriageReturn;
+		started = markStarted;
+		mark = -1;
+	}
+
+	/**
+	 * Forget mark.
+	 */
+	void unmark() {
+		mark = -1;
+	}
+
+	/**
+	 * Make sure there's at least one byte available.
+	 * @return <code>false</code> on end of input
+	 * @throws IOException
+	 */
+	private boolean fill() throws IOException {
+		if (position < limit) {
+			return true;
+		}
+		if (eof) {
+			return false;
+		}
+		if (input == null) {
+			if (!endOfInput) {
+				throw NOT_AVAILABLE;
+			}
+			eof = true;
+			return false;
+		}
+		int count = input.read(buffer, 0, buffer.length);
+		while (count == 0) {
+			count = input.read(buffer, 0, buffer.length);
+		}
+		if (count < 0) {
+			eof = true;
+			position = limit = 0;
+			return false;
+		}
+		position = 0;
+		limit = count;
+		return true;
+	}
+
+	private int read() throws IOException {
+		return fill() ? buffer[position++] & 0xFF : -1;
+	}
+
+	private void markToken() {
+		tokenOffset = offset;
+		if (trackLocation) {
+			tokenLine = line;
+			tokenColumn = offset - lineStart;
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > chars.length) {
+			char[] newChars = new char[Math.max(capacity, 2 * chars.length)];
+			System.arraycopy(chars, 0, newChars, 0, length);
+			chars = newChars;
+		}
+	}
+
+	private void append(char c) {
+		if (length == chars.length) {
+			ensureCapacity(length + 1);
+		}
+		chars[length++] = c;
+	}
+
+	private IOException illegalCharacter(int b) {
+		return new IOException("Illegal character: <" + (char) b + ">");
+	}
+
+	/**
+	 * Skip whitespace and answer the first non-whitespace byte (not consumed).
+	 * @return next byte or <code>-1</code> on end of input
+	 * @throws IOException
+	 */
+	private int skipWhitespace() throws IOException {
+		while (fill()) {
+			int b = buffer[position];
+			switch (b) {
+			case ' ':
+			case '\t':
+			case '\b':
+				carriageReturn = false;
+				break;
+			case '\n':
+				if (trackLocation) {
+					if (!carriageReturn) {
+						line++;
+					}
+					carriageReturn = false;
+					lineStart = offset + 1;
+				}
+				break;
+			case '\r':
+				if (trackLocation) {
+					line++;
+					carriageReturn = true;
+					lineStart = offset + 1;
+				}
+				break;
+			default:
+				return b & 0xFF;
+			}
+			position++;
+			offset++;
+		}
+		return -1;
+	}
+
+	private Symbol literal(String literal, Symbol symbol) throws IOException {
+		for (int i = 0; i < literal.length(); i++) {
+			int b = read();
+			if (b != literal.charAt(i)) {
+				throw illegalCharacter(literal.charAt(0));
+			}
+			offset++;
+		}
+		text = literal;
+		return symbol;
+	}
+
+	private int digits() throws IOException {
+		int count = 0;
+		while (fill()) {
+			byte b = buffer[position];
+			if (b < '0' || b > '9') {
+				break;
+			}
+			append((char) b);
+			position++;
+			count++;
+		}
+		offset += count;
+		return count;
+	}
+
+	private Symbol number() throws IOException {
+		length = 0;
+		int b = buffer[position];
+		if (b == '-') {
+			append('-');
+			position++;
+			offset++;
+			if (!fill()) {
+				throw illegalCharacter('-');
+			}
+			b = buffer[position];
+			if (b < '0' || b > '9') {
+				throw illegalCharacter('-');
+			}
+		}
+		if (b == '0') {
+			append('0');
+			position++;
+			offset++;
+		} else {
+			digits();
+		}
+		if (fill() && buffer[position] == '.') {
+			position++;
+			offset++;
+			append('.');
+			if (digits() == 0) {
+				throw illegalCharacter('.');
+			}
+		}
+		if (fill() && (buffer[position] == 'e' || buffer[position] == 'E')) {
+			append((char) buffer[position]);
+			position++;
+			offset++;
+			if (fill() && (buffer[position] == '+' || buffer[position] == '-')) {
+				append((char) buffer[position]);
+				position++;
+				offset++;
+			}
+			if (digits() == 0) {
+				throw illegalCharacter(chars[length - 1]);
+			}
+		}
+		slice.set(chars, 0, length);
+		sliced = true;
+		return Symbol.NUMBER;
+	}
+
+	private int continuation() throws IOException {
+		int b = read();
+		if ((b & 0xC0) != 0x80) {
+			throw new IOException("Illegal UTF-8 sequence");
+		}
+		return b & 0x3F;
+	}
+
+	private int hexDigit() throws IOException {
+		int b = read();
+		offset++;
+		if (b >= '0' && b <= '9') {
+			return b - '0';
+		} else if (b >= 'a' && b <= 'f') {
+			return b - 'a' + 10;
+		} else if (b >= 'A' && b <= 'F') {
+			return b - 'A' + 10;
+		}
+		throw illegalCharacter('\\');
+	}
+
+	private void escape() throws IOException {
+		int b = read();
+		offset++;
+		switch (b) {
+		case '"':
+			append('"');
+			break;
+		case '\\':
+			append('\\');
+			break;
+		case '/':
+			append('/');
+			break;
+		case 'b':
+			append('\b');
+			break;
+		case 'f':
+			append('\f');
+			break;
+		case 'n':
+			append('\n');
+			break;
+		case 'r':
+			append('\r');
+			break;
+		case 't':
+			append('\t');
+			break;
+		case 'u':
+			append((char) ((hexDigit() << 12) | (hexDigit() << 8) | (hexDigit() << 4) | hexDigit()));
+			break;
+		default:
+			throw illegalCharacter('\\');
+		}
+	}
+
+	/*
+	 * scan string starting at the opening quote (or at the next chunk if <code>quote</code> is <code>false</code>);
+	 * if a fed scanner runs out of input, the partial string is kept to be continued when the
+	 * scanner has been reset and reaches the same start again
+	 */
+	private Symbol string(boolean quote) throws IOException {
+		int start = position;
+		if (start == resumeStart) {
+			char[] partial = resumeChars;
+			resumeChars = chars;
+			chars = partial;
+			length = resumeLength;
+			position = resumePosition;
+			offset = resumeOffset;
+			resumeStart = -1;
+		} else {
+			length = 0;
+			if (quote) {
+				position++;
+				offset++;
+			}
+		}
+		try {
+			return stringContent();
+		} catch (NotAvailableException e) {
+			char[] partial = chars;
+			chars = resumeChars != null ? resumeChars : new char[partial.length];
+			resumeChars = partial;
+			resumeStart = start;
+			throw e;
+		}
+	}
+
+	/*
+	 * scan string content up to the closing quote or (in chunked mode) the end of the current chunk
+	 */
+	private Symbol stringContent() throws IOException {
+		while (true) {
+			/*
+			 * checkpoint: escapes and multi-byte sequences are rescanned as a whole
+			 */
+			resumePosition = position;
+			resumeOffset = offset;
+			resumeLength = length;
+			if (chunkSize > 0 && length >= chunkSize && !Character.isHighSurrogate(chars[length - 1])) {
+				markToken();
+				slice.set(chars, 0, length);
+				sliced = true;
+				inString = true;
+				return Symbol.STRING_CHUNK;
+			}
+			if (!fill()) {
+				throw new IOException("Unterminated string");
+			}
+			/*
+			 * fast path: copy ASCII run
+			 */
+			int end = Math.min(limit, position + chars.length - length);
+			if (chunkSize > 0) {
+				end = Math.min(end, position + Math.max(chunkSize - length, 1));
+			}
+			int start = position;
+			while (position < end) {
+				byte b = buffer[position];
+				if (b < 0 || b == '"' || b == '\\' || b == '\n' || b == '\r') {
+					break;
+				}
+				chars[length++] = (char) b;
+				position++;
+			}
+			offset += position - start;
+			if (position == end) {
+				if (length == chars.length) {
+					ensureCapacity(length + 1);
+				}
+				continue;
+			}
+			int b = buffer[position] & 0xFF;
+			if (b == '"') {
+				markToken();
+				position++;
+				offset++;
+				slice.set(chars, 0, length);
+				sliced = true;
+				inString = false;
+				return Symbol.STRING;
+			} else if (b == '\\') {
+				position++;
+				offset++;
+				escape();
+			} else if (b == '\n' || b == '\r') {
+				throw illegalCharacter(b);
+			} else { // multi-byte sequence
+				position++;
+				offset++;
+				if (b < 0xC2) {
+					throw new IOException("Illegal UTF-8 sequence");
+				} else if (b < 0xE0) {
+					append((char) (((b & 0x1F) << 6) | continuation()));
+				} else if (b < 0xF0) {
+					int c = ((b & 0x0F) << 12) | (continuation() << 6) | continuation();
+					if (c < 0x800 || (c >= 0xD800 && c <= 0xDFFF)) {
+						throw new IOException("Illegal UTF-8 sequence");
+					}
+					append((char) c);
+				} else if (b < 0xF5) {
+					int c = ((b & 0x07) << 18) | (continuation() << 12) | (continuation() << 6) | continuation();
+					if (c < 0x10000 || c > Character.MAX_CODE_POINT) {
+						throw new IOException("Illegal UTF-8 sequence");
+					}
+					append((char) (0xD800 + ((c - 0x10000) >>> 10)));
+					append((char) (0xDC00 + (c & 0x3FF)));
+					offset++; // surrogate pair counts as two characters
+				} else {
+					throw new IOException("Illegal UTF-8 sequence");
+				}
+			}
+		}
+	}
+
+	private void skipByteOrderMark() throws IOException {
+		if (fill() && (buffer[position] & 0xFF) == 0xEF) {
+			position++;
+			if (read() != 0xBB || read() != 0xBF) {
+				throw new IOException("Illegal UTF-8 sequence");
+			}
+		}
+	}
+
+	@Override
+	public Symbol nextSymbol() throws IOException {
+		if (!started) {
+			skipByteOrderMark();
+			started = true;
+		}
+		text = null;
+		sliced = false;
+		if (inString) { // next chunk
+			return string(false);
+		}
+		int b = skipWhitespace();
+		carriageReturn = false;
+		markToken();
+		switch (b) {
+		case -1:
+			return Symbol.EOF;
+		case '{':
+			position++;
+			offset++;
+			return Symbol.START_OBJECT;
+		case '}':
+			position++;
+			offset++;
+			return Symbol.END_OBJECT;
+		case '[':
+			position++;
+			offset++;
+			return Symbol.START_ARRAY;
+		case ']':
+			position++;
+			offset++;
+			return Symbol.END_ARRAY;
+		case ',':
+			position++;
+			offset++;
+			return Symbol.COMMA;
+		case ':':
+			position++;
+			offset++;
+			return Symbol.COLON;
+		case '"':
+			return string(true);
+		case 't':
+			return literal("true", Symbol.TRUE);
+		case 'f':
+			return literal("false", Symbol.FALSE);
+		case 'n':
+			return literal("null", Symbol.NULL);
+		case '-':
+		case '0':
+		case '1':
+		case '2':
+		case '3':
+		case '4':
+		case '5':
+		case '6':
+		case '7':
+		case '8':
+		case '9':
+			return number();
+		default:
+			throw illegalCharacter(b);
+		}
+	}
+
+	@Override
+	public Symbol skipStructure() throws IOException {
+		text = null;
+		sliced = false;
+		if (skipDepth == 0) {
+			skipDepth = 1;
+			skipString = false;
+			skipEscape = false;
+		}
+		while (fill()) {
+			while (position < limit) {
+				int b = buffer[position] & 0xFF;
+				if (trackLocation) {
+					if (b == '\n') {
+						if (!carriageReturn) {
+							line++;
+						}
+						lineStart = offset + 1;
+					} else if (b == '\r') {
+						line++;
+						lineStart = offset + 1;
+					}
+					carriageReturn = b == '\r';
+				}
+				if (skipString) {
+					if (skipEscape) {
+						skipEscape = false;
+					} else if (b == '\\') {
+						skipEscape = true;
+					} else if (b == '"') {
+						skipString = false;
+					}
+				} else if (b == '"') {
+					skipString = true;
+				} else if (b == '{' || b == '[') {
+					skipDepth++;
+				} else if ((b == '}' || b == ']') && --skipDepth == 0) {
+					carriageReturn = false;
+					markToken();
+					position++;
+					offset++;
+					return b == '}' ? Symbol.END_OBJECT : Symbol.END_ARRAY;
+				}
+				position++;
+				if ((b & 0xC0) != 0x80) { // count characters, not bytes
+					offset += b >= 0xF0 ? 2 : 1;
+				}
+			}
+		}
+		skipDepth = 0;
+		return Symbol.EOF;
+	}
+
+	@Override
+	public String getText() {
+		if (text == null && sliced) {
+			text = slice.toString();
+		}
+		return text;
+	}
+
+	@Override
+	public CharSlice getTextSlice() {
+		return sliced ? slice : null;
+	}
+
+	@Override
+	public void close() throws IOException {
+		eof = true;
+		position = limit = 0;
+		if (input != null) {
+			input.close();
+		}
+	}
+
+	@Override
+	public int getCharOffset() {
+		return tokenOffset;
+	}
+
+	@Override
+	public int getLineNumber() {
+		return trackLocation ? tokenLine : -1;
+	}
+
+	@Override
+	public int getColumnNumber() {
+		return trackLocation ? tokenColumn : -1;
+	}
+}
@@ -75,6 +75,75 @@ public class AddRootSource extends StreamSourceDelegate {
 		return super.value();
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		if (state == State.ROOT_XMLNS_VALUE) {
+			return ValueType.STRING;
+		}
+		return super.peekValueType();
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		if (state == State.ROOT_XMLNS_VALUE) {
+			state = State.DELEGATE;
+			return root.getNamespaceURI();
+		}
+		return super.stringValue();
+	}
+
+	private void requireDelegate() throws IOException {
+		if (state == State.ROOT_XMLNS_VALUE) {
+			throw new IOException("Unexpected value type: " + ValueType.STRING);
+		}
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		requireDelegate();
+		return super.longValue();
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		requireDelegate();
+		return super.doubleValue();
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		requireDelegate();
+		return super.booleanValue();
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		requireDelegate();
+		super.nullValue();
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (state) {
+		case DELEGATE:
+			super.skipValue();
+			break;
+		case ROOT_XMLNS_VALUE:
+			stringValue();
+			break;
+		case START_DOC: // skip synthetic root object
+			startObject();
+			while (peek() == JsonStreamToken.NAME) {
+				name();
+				skipValue();
+			}
+			endObject();
+			break;
+		default:
+			throw new IOException("Not a value token: " + peek());
+		}
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		if (state == State.START_DOC) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Array paths used by {@link AutoArrayTarget} to decide array boundaries without
+ * buffering. A path is the sequence of field names from the root, separated by <code>'/'</code>
+ * (e.g. <code>"alice/bob"</code>).
+ *
+ * <p>Paths are either supplied up front, or learned from the first documents written by
+ * targets sharing an instance. Once learning is complete, fields with known paths are
+ * written immediately; only fields with unknown paths are buffered until their next sibling.
+ * A field known as non-array, which turns out to repeat after it has been written,
+ * causes an <code>IOException</code>.</p>
+ *
+ * <p>Instances are thread-safe and may be shared by several targets.</p>
+ */
+public class AutoArrayPaths {
+	private final ConcurrentMap<String, Boolean> paths = new ConcurrentHashMap<String, Boolean>();
+	private final AtomicInteger learnDocuments;
+	private final boolean complete;
+
+	/**
+	 * Learn array paths from the first documents.
+	 * @param learnDocuments number of documents to learn from
+	 */
+	public AutoArrayPaths(int learnDocuments) {
+		this.learnDocuments = new AtomicInteger(learnDocuments);
+		this.complete = false;
+	}
+
+	/**
+	 * Use given array paths, all other paths are non-array.
+	 * @param arrayPaths array paths
+	 */
+	public AutoArrayPaths(Collection<String> arrayPaths) {
+		for (String path : arrayPaths) {
+			paths.put(path, Boolean.TRUE);
+		}
+		this.learnDocuments = new AtomicInteger(0);
+		this.complete = true;
+	}
+
+	/**
+	 * @return <code>true</code> while documents are being learned
+	 */
+	public boolean isLearning() {
+		return learnDocuments.get() > 0;
+	}
+
+	/**
+	 * Answer whether the given path is an array.
+	 * @param path field path
+	 * @return decision or <code>null</code> if undecided (while learning or if the path is unknown)
+	 */
+	public Boolean isArray(String path) {
+		if (isLearning()) {
+			return null;
+		}
+		Boolean array = paths.get(path);
+		return array == null && complete ? Boolean.FALSE : array;
+	}
+
+	/**
+	 * Record decision for a path while learning. A path is an array if it has been
+	 * an array in at least one document.
+	 * @param path field path
+	 * @param array
+	 */
+	void learn(String path, boolean array) {
+		if (isLearning()) {
+			if (array) {
+				paths.put(path, Boolean.TRUE);
+			} else {
+				paths.putIfAbsent(path, Boolean.FALSE);
+			}
+		}
+	}
+
+	/**
+	 * Notify end of document.
+	 */
+	void documentDone() {
+		if (learnDocuments.get() > 0) {
+			learnDocuments.decrementAndGet();
+		}
+	}
+}
@@ -27,12 +27,19 @@ import de.odysseus.staxon.json.stream.JsonStreamToken;
 /**
  * Target filter to auto-insert array boundaries.
  * 
- * Note: this class caches all events and flushes to the
- * underlying target after receiving the last close-object
- * event, which may cause memory issues for large documents.
+ * Note: a field is undecided until its next sibling or the end of its
+ * parent object, and all events from an undecided field on are cached.
+ * Without further knowledge, this caches the whole document until the last
+ * close-object event, which may cause memory issues for large documents.
  * Also, auto-recognition of array boundaries never creates
  * arrays with a single element.
  * 
+ * Passing {@link AutoArrayPaths} decides fields by their path, so that
+ * only subtrees of unknown fields are cached. Passing a spill threshold
+ * moves cached events to a temporary file once their estimated size
+ * exceeds the threshold. The file is deleted when all its events have been
+ * written or the target is closed.
+ * 
  * It is recommended to handle array boundaries via the
  * {@link JsonXMLStreamWriter#writeStartArray(String)} and
  * {@link JsonXMLStreamWriter#writeEndArray()} methods
@@ -78,6 +85,21 @@ public class AutoArrayTarget implements JsonStreamTarget {
 		}
 	};
 
+	static final Event START_ARRAY = new Event() {
+		@Override
+		public void write(JsonStreamTarget target) throws IOException {
+			target.startArray();
+		}
+		@Override
+		public JsonStreamToken token() {
+			return JsonStreamToken.START_ARRAY;
+		}
+		@Override
+		public String toString() {
+			return token().name();
+		}
+	};
+
 	static final Event END_ARRAY = new Event() {
 		@Override
 		public void write(JsonStreamTarget target) throws IOException {
@@ -95,10 +117,19 @@ public class AutoArrayTarget implements JsonStreamTarget {
 
 	static final class NameEvent implements Event {
 		final String name;
+		final String path;
 		boolean array;
+		boolean decided;
+		boolean written;
+		boolean open; // on field stack
+		int ref = -1; // spill file reference
 		
 		NameEvent(String name) {
+			this(name, null);
+		}
+		NameEvent(String name, String path) {
 			this.name = name;
+			this.path = path;
 		}
 		@Override
 		public void write(JsonStreamTarget target) throws IOException {
@@ -106,6 +137,7 @@ public class AutoArrayTarget implements JsonStreamTarget {
 			if (array) {
 				target.startArray();
 			}
+			written = true;
 		}
 		@Override
 		public JsonStreamToken token() {
@@ -150,6 +182,26 @@ public class AutoArrayTarget implements JsonStreamTarget {
 		}
 	}
 
+	static final class ChunkEvent implements Event {
+		final String chunk;
+		
+		ChunkEvent(String chunk) {
+			this.chunk = chunk;
+		}
+		@Override
+		public void write(JsonStreamTarget target) throws IOException {
+			target.stringChunk(chunk);
+		}
+		@Override
+		public JsonStreamToken token() {
+			return JsonStreamToken.VALUE;
+		}
+		@Override
+		public String toString() {
+			return token().name() + " = " + chunk + "...";
+		}
+	}
+
 	/*
 	 * delegate target
 	 */
@@ -165,63 +217,210 @@ public class AutoArrayTarget implements JsonStreamTarget {
 	 */
 	private final Stack<NameEvent> fields = new Stack<NameEvent>();
 	
+	/*
+	 * Array paths (may be null)
+	 */
+	private final AutoArrayPaths paths;
+
+	/*
+	 * Last event added (the queue may have been flushed)
+	 */
+	private Event last;
+
+	/*
+	 * Estimated size of queued events, spill file (continues the queue, if not null)
+	 */
+	private final int spillThreshold;
+	private long queuedSize;
+	private EventSpillFile spill;
+
 	public AutoArrayTarget(JsonStreamTarget delegate) {
+		this(delegate, null);
+	}
+
+	/**
+	 * Create target, using (and learning) array paths.
+	 * @param delegate
+	 * @param paths array paths, shared by targets (may be <code>null</code>)
+	 */
+	public AutoArrayTarget(JsonStreamTarget delegate, AutoArrayPaths paths) {
+		this(delegate, paths, 0);
+	}
+
+	/**
+	 * Create target, using (and learning) array paths and spilling cached events to disk.
+	 * @param delegate
+	 * @param paths array paths, shared by targets (may be <code>null</code>)
+	 * @param spillThreshold estimated size in bytes of cached events before they are moved
+	 * to a temporary file (<code>0</code> means never)
+	 */
+	public AutoArrayTarget(JsonStreamTarget delegate, AutoArrayPaths paths, int spillThreshold) {
 		this.delegate = delegate;
+		this.paths = paths;
+		this.spillThreshold = spillThreshold;
 	}
 
-	private void pushField(String name) {
-		events.add(fields.push(new NameEvent(name)));
+	/*
+	 * approximate heap size of a queued event
+	 */
+	private static int estimate(Event event) {
+		if (event instanceof NameEvent) {
+			return 64 + 2 * ((NameEvent) event).name.length();
+		} else if (event instanceof ChunkEvent) {
+			return 48 + 2 * ((ChunkEvent) event).chunk.length();
+		} else if (event instanceof ValueEvent && ((ValueEvent) event).value instanceof String) {
+			return 48 + 2 * ((String) ((ValueEvent) event).value).length();
+		}
+		return 32;
 	}
 
-	private void popField() {
-		if (fields.pop().isArray()) {
-			events.add(END_ARRAY);
+	private void add(Event event) throws IOException {
+		if (spill != null) {
+			spill.add(event);
+		} else {
+			events.add(event);
+			if (spillThreshold > 0) {
+				queuedSize += estimate(event);
+			}
+		}
+		last = event;
+	}
+
+	private static boolean isUndecided(Event event) {
+		return event instanceof NameEvent && !((NameEvent) event).decided;
+	}
+
+	/*
+	 * write events up to the first undecided field
+	 */
+	private void flushDecided() throws IOException {
+		if (spill != null) {
+			Event event;
+			while ((event = spill.peek()) != null) {
+				if (isUndecided(event)) {
+					return;
+				}
+				spill.poll().write(delegate);
+			}
+			spill.close(); // all spilled events written
+			spill = null;
+			return;
+		}
+		while (!events.isEmpty()) {
+			Event event = events.peekFirst();
+			if (isUndecided(event)) {
+				break;
+			}
+			events.pollFirst().write(delegate);
+			if (spillThreshold > 0) {
+				queuedSize -= estimate(event);
+			}
+		}
+		if (spillThreshold > 0 && queuedSize > spillThreshold) {
+			spill = new EventSpillFile();
+			while (!events.isEmpty()) {
+				spill.add(events.pollFirst());
+			}
+			queuedSize = 0;
+		}
+	}
+
+	private void pushField(String name) throws IOException {
+		NameEvent field;
+		if (paths == null) {
+			field = new NameEvent(name);
+		} else {
+			field = new NameEvent(name, fields.isEmpty() ? name : fields.peek().path + '/' + name);
+			Boolean array = paths.isArray(field.path);
+			if (array != null) {
+				field.setArray(array.booleanValue());
+				field.decided = true;
+			}
+		}
+		field.open = true;
+		add(fields.push(field));
+	}
+
+	private void popField() throws IOException {
+		NameEvent field = fields.pop();
+		field.decided = true;
+		field.open = false;
+		if (spill != null && field.ref >= 0) {
+			spill.closed(field);
+		}
+		if (paths != null) {
+			paths.learn(field.path, field.isArray());
+		}
+		if (field.isArray()) {
+			add(END_ARRAY);
 		}
 	}
 	
 	@Override
 	public void name(String name) throws IOException {
-		if (events.peekLast().token() == JsonStreamToken.START_OBJECT) {
+		if (last.token() == JsonStreamToken.START_OBJECT) {
 			pushField(name);
 		} else {
-			if (name.equals(fields.peek().name())) {
-				fields.peek().setArray(true);
+			NameEvent field = fields.peek();
+			if (name.equals(field.name())) {
+				if (!field.isArray()) {
+					if (field.written) {
+						throw new IOException("Cannot repeat non-array field: " + field.path);
+					}
+					field.setArray(true);
+				}
 			} else {
 				popField();
 				pushField(name);
 			}
 		}
+		flushDecided();
 	}
 
 	@Override
 	public void value(Object value) throws IOException {
-		events.add(new ValueEvent(value));
+		add(new ValueEvent(value));
+		flushDecided();
+	}
+
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		add(new ChunkEvent(chunk));
+		flushDecided();
 	}
 
 	@Override
 	public void startObject() throws IOException {
-		events.add(START_OBJECT);
+		add(START_OBJECT);
+		flushDecided();
 	}
 
 	@Override
 	public void endObject() throws IOException {
-		if (events.peekLast().token() != JsonStreamToken.START_OBJECT) {
+		if (last.token() != JsonStreamToken.START_OBJECT) {
 			popField();
 		}
-		events.add(END_OBJECT);
-		if (fields.isEmpty()) {
-			while (!events.isEmpty()) {
-				events.pollFirst().write(delegate);
-			}
+		add(END_OBJECT);
+		if (fields.isEmpty() && paths != null) {
+			paths.documentDone();
 		}
+		flushDecided();
 	}
 
 	@Override
 	public void startArray() throws IOException {
-		if (fields.peek().isArray()) {
+		NameEvent field = fields.peek();
+		if (field.isArray()) {
+			if (field.decided) { // known array path
+				return;
+			}
 			throw new IllegalStateException();
 		}
-		fields.peek().setArray(true);
+		field.setArray(true);
+		if (field.written) { // name has been written without array start
+			add(START_ARRAY);
+			flushDecided();
+		}
 	}
 
 	@Override
@@ -234,10 +433,23 @@ public class AutoArrayTarget implements JsonStreamTarget {
 
 	@Override
 	public void close() throws IOException {
-		while (!events.isEmpty()) {
-			events.pollFirst().write(delegate);
+		try {
+			while (!events.isEmpty()) {
+				events.pollFirst().write(delegate);
+			}
+			if (spill != null) {
+				Event event;
+				while ((event = spill.poll()) != null) {
+					event.write(delegate);
+				}
+			}
+			delegate.close();
+		} finally {
+			if (spill != null) {
+				spill.close();
+				spill = null;
+			}
 		}
-		delegate.close();
 	}
 
 	@Override
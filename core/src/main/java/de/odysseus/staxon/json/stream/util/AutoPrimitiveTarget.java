@@ -30,6 +30,7 @@ public class AutoPrimitiveTarget extends StreamTargetDelegate {
 	private final String attributePrefix;
 	
 	private String lastName;
+	private StringBuilder chunks;
 
 	public AutoPrimitiveTarget(JsonStreamTarget delegate, boolean convertAttributes, String attributePrefix) {
 		super(delegate);
@@ -43,8 +44,23 @@ public class AutoPrimitiveTarget extends StreamTargetDelegate {
 		super.name(name);
 	}
 	
+	/**
+	 * Collect chunks, since the complete string is needed for conversion.
+	 */
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		if (chunks == null) {
+			chunks = new StringBuilder();
+		}
+		chunks.append(chunk);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
+		if (chunks != null) {
+			value = chunks.append(value).toString();
+			chunks = null;
+		}
 		if (value instanceof String && (convertAttributes || !lastName.startsWith(attributePrefix))) {
 			if ("true".equals(value)) {
 				super.value(Boolean.TRUE);
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import de.odysseus.staxon.json.stream.util.AutoArrayTarget.ChunkEvent;
+import de.odysseus.staxon.json.stream.util.AutoArrayTarget.Event;
+import de.odysseus.staxon.json.stream.util.AutoArrayTarget.NameEvent;
+import de.odysseus.staxon.json.stream.util.AutoArrayTarget.ValueEvent;
+
+/**
+ * Temporary file holding a sequence of {@link AutoArrayTarget} events.
+ * Events are appended at the end and read from the front.
+ *
+ * Fields, which are still open when their name is spilled, are referenced by number.
+ * Their array flag is kept in memory and applied when the name is read back.
+ */
+final class EventSpillFile implements Closeable {
+	private static final int BUFFER_SIZE = 8192;
+
+	/*
+	 * maximum number of characters per UTF record (at most 3 bytes each)
+	 */
+	private static final int UTF_CHUNK = 16384;
+
+	private static final byte START_OBJECT = 0;
+	private static final byte END_OBJECT = 1;
+	private static final byte START_ARRAY = 2;
+	private static final byte END_ARRAY = 3;
+	private static final byte NAME = 4;
+	private static final byte NAME_REF = 5;
+	private static final byte CHUNK = 6;
+	private static final byte NULL = 7;
+	private static final byte STRING = 8;
+	private static final byte TRUE = 9;
+	private static final byte FALSE = 10;
+	private static final byte INTEGER = 11;
+	private static final byte LONG = 12;
+	private static final byte DOUBLE = 13;
+	private static final byte FLOAT = 14;
+	private static final byte BIG_INTEGER = 15;
+	private static final byte BIG_DECIMAL = 16;
+
+	private final File file;
+	private final DataOutputStream output;
+	private DataInputStream input;
+
+	private long written = 0;
+	private long flushed = 0;
+	private long read = 0;
+	private Event head;
+
+	/*
+	 * open fields by reference number, closed fields' array flags
+	 */
+	private final Map<Integer, NameEvent> openFields = new HashMap<Integer, NameEvent>();
+	private final BitSet arrayFlags = new BitSet();
+	private int fieldCount = 0;
+
+	EventSpillFile() throws IOException {
+		file = File.createTempFile("staxon", ".events");
+		try {
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+	}
+
+	private void writeString(String value) throws IOException {
+		int length = value.length();
+		output.writeInt(length);
+		for (int start = 0; start < length; start += UTF_CHUNK) {
+			output.writeUTF(value.substring(start, Math.min(length, start + UTF_CHUNK)));
+		}
+	}
+
+	private String readString() throws IOException {
+		int length = input.readInt();
+		if (length == 0) { // no pieces written
+			return "";
+		} else if (length <= UTF_CHUNK) {
+			return input.readUTF();
+		}
+		StringBuilder builder = new StringBuilder(length);
+		while (builder.length() < length) {
+			builder.append(input.readUTF());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Append event.
+	 * @param event
+	 */
+	void add(Event event) throws IOException {
+		if (event == AutoArrayTarget.START_OBJECT) {
+			output.writeByte(START_OBJECT);
+		} else if (event == AutoArrayTarget.END_OBJECT) {
+			output.writeByte(END_OBJECT);
+		} else if (event == AutoArrayTarget.START_ARRAY) {
+			output.writeByte(START_ARRAY);
+		} else if (event == AutoArrayTarget.END_ARRAY) {
+			output.writeByte(END_ARRAY);
+		} else if (event instanceof NameEvent) {
+			NameEvent field = (NameEvent) event;
+			if (field.open) {
+				field.ref = fieldCount++;
+				openFields.put(field.ref, field);
+				output.writeByte(NAME_REF);
+				output.writeInt(field.ref);
+			} else {
+				output.writeByte(NAME);
+				output.writeBoolean(field.array);
+			}
+			writeString(field.name);
+			output.writeUTF(field.path == null ? "" : field.path);
+		} else if (event instanceof ChunkEvent) {
+			output.writeByte(CHUNK);
+			writeString(((ChunkEvent) event).chunk);
+		} else {
+			Object value = ((ValueEvent) event).value;
+			if (value == null) {
+				output.writeByte(NULL);
+			} else if (value instanceof String) {
+				output.writeByte(STRING);
+				writeString((String) value);
+			} else if (value instanceof Boolean) {
+				output.writeByte(((Boolean) value).booleanValue() ? TRUE : FALSE);
+			} else if (value instanceof Integer) {
+				output.writeByte(INTEGER);
+				output.writeInt((Integer) value);
+			} else if (value instanceof Long) {
+				output.writeByte(LONG);
+				output.writeLong((Long) value);
+			} else if (value instanceof Double) {
+				output.writeByte(DOUBLE);
+				output.writeDouble((Double) value);
+			} else if (value instanceof Float) {
+				output.writeByte(FLOAT);
+				output.writeFloat((Float) value);
+			} else if (value instanceof BigInteger) {
+				output.writeByte(BIG_INTEGER);
+				output.writeUTF(value.toString());
+			} else if (value instanceof Number) { // other numbers are written by their string value
+				output.writeByte(BIG_DECIMAL);
+				output.writeUTF(value.toString());
+			} else {
+				throw new IOException("Cannot spill value: " + value);
+			}
+		}
+		written++;
+	}
+
+	/**
+	 * Notify that a spilled field has been closed, so its array flag is final.
+	 * @param field
+	 */
+	void closed(NameEvent field) {
+		if (openFields.remove(field.ref) != null) {
+			arrayFlags.set(field.ref, field.array);
+		}
+	}
+
+	private Event read() throws IOException {
+		if (read == flushed) { // make sure the record is in the file
+			output.flush();
+			flushed = written;
+		}
+		if (input == null) {
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+		}
+		byte type = input.readByte();
+		read++;
+		switch (type) {
+		case START_OBJECT:
+			return AutoArrayTarget.START_OBJECT;
+		case END_OBJECT:
+			return AutoArrayTarget.END_OBJECT;
+		case START_ARRAY:
+			return AutoArrayTarget.START_ARRAY;
+		case END_ARRAY:
+			return AutoArrayTarget.END_ARRAY;
+		case NAME:
+		case NAME_REF:
+			int ref = type == NAME_REF ? input.readInt() : -1;
+			boolean array = type == NAME ? input.readBoolean() : false;
+			String name = readString();
+			String path = input.readUTF();
+			if (ref >= 0) {
+				NameEvent open = openFields.get(ref);
+				if (open != null) { // still open, use field from stack
+					return open;
+				}
+				array = arrayFlags.get(ref);
+			}
+			NameEvent field = new NameEvent(name, path.length() == 0 ? null : path);
+			field.setArray(array);
+			field.decided = true;
+			return field;
+		case CHUNK:
+			return new ChunkEvent(readString());
+		case NULL:
+			return new ValueEvent(null);
+		case STRING:
+			return new ValueEvent(readString());
+		case TRUE:
+			return new ValueEvent(Boolean.TRUE);
+		case FALSE:
+			return new ValueEvent(Boolean.FALSE);
+		case INTEGER:
+			return new ValueEvent(input.readInt());
+		case LONG:
+			return new ValueEvent(input.readLong());
+		case DOUBLE:
+			return new ValueEvent(input.readDouble());
+		case FLOAT:
+			return new ValueEvent(input.readFloat());
+		case BIG_INTEGER:
+			return new ValueEvent(new BigInteger(input.readUTF()));
+		case BIG_DECIMAL:
+			return new ValueEvent(new BigDecimal(input.readUTF()));
+		default:
+			throw new IOException("Corrupt spill file: " + file);
+		}
+	}
+
+	/**
+	 * @return first event or <code>null</code> if all events have been read
+	 */
+	Event peek() throws IOException {
+		if (head == null && read < written) {
+			head = read();
+		}
+		return head;
+	}
+
+	/**
+	 * @return first event or <code>null</code> if all events have been read
+	 */
+	Event poll() throws IOException {
+		Event event = peek();
+		head = null;
+		return event;
+	}
+
+	/**
+	 * Close streams and delete file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			try {
+				output.close();
+			} finally {
+				if (input != null) {
+					input.close();
+				}
+			}
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -64,6 +64,41 @@ public class StreamSourceDelegate implements JsonStreamSource {
 		return delegate.value();
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		return delegate.peekValueType();
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		return delegate.stringValue();
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		return delegate.longValue();
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		return delegate.doubleValue();
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		return delegate.booleanValue();
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		delegate.nullValue();
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		delegate.skipValue();
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		delegate.startObject();
@@ -128,10 +163,12 @@ public class StreamSourceDelegate implements JsonStreamSource {
 				target.name(delegate.name());
 				break;
 			case VALUE:
-				target.value(delegate.value().data);
+				target.value(delegate.value().getData());
 				break;
 			case NONE:
 				return;
+			case NOT_AVAILABLE:
+				throw new IOException("Input not available");
 			}
 		}		
 	}
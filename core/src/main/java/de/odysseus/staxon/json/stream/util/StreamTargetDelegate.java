@@ -52,6 +52,11 @@ public class StreamTargetDelegate implements JsonStreamTarget {
 		delegate.value(value);
 	}
 
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		delegate.stringChunk(chunk);
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		delegate.startObject();
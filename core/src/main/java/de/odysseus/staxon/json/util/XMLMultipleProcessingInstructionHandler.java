@@ -16,6 +16,7 @@
 package de.odysseus.staxon.json.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -48,7 +49,7 @@ class XMLMultipleProcessingInstructionHandler {
 	private final StringBuilder path = new StringBuilder();
 	private final Set<String> absoluteMultiplePaths = new HashSet<String>();
 	private final List<String> relativeMultiplePaths = new ArrayList<String>();
-	private final String[] names = new String[64];
+	private String[] names = new String[64];
 	private final boolean matchRoot;
 	private final boolean matchPrefixes;
 
@@ -116,6 +117,9 @@ class XMLMultipleProcessingInstructionHandler {
 			writer.add(MULTIPLE_PI);
 		}
 
+		if (depth == names.length) {
+			names = Arrays.copyOf(names, 2 * depth);
+		}
 		names[depth] = name;
 		previousSiblingName = null;
 		depth++;
@@ -18,6 +18,7 @@ package de.odysseus.staxon.base;
 import java.io.StringReader;
 
 import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
@@ -193,6 +194,42 @@ public class AbstractXMLStreamReaderTest {
 		reader.close();
 	}
 	
+	/**
+	 * <code>&lt;alice&gt;&lt;bob charlie="david" xmlns:p="http://p"/&gt;&lt;bob/&gt;&lt;edgar/&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testRecycledScopes() throws Exception {
+		String input = "<?xml version=\"1.0\"?><alice><bob charlie=\"david\" xmlns:p=\"http://p\"></bob><bob></bob><edgar></edgar></alice>";
+		XMLStreamReader reader = new SimpleXMLStreamReader(new StringReader(input));
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "bob", null);
+		Assert.assertEquals(1, reader.getAttributeCount());
+		Assert.assertEquals(1, reader.getNamespaceCount());
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "bob", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "bob", null);
+		NamespaceContext context = reader.getNamespaceContext();
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "bob", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "edgar", null); // reuses first bob's scope
+		Assert.assertEquals(0, reader.getAttributeCount());
+		Assert.assertEquals(0, reader.getNamespaceCount());
+		Assert.assertEquals(XMLConstants.NULL_NS_URI, reader.getNamespaceURI("p"));
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "edgar", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		Assert.assertEquals("bob", ((AbstractXMLStreamScope) context).getLocalName()); // retained, not reused
+		reader.close();
+	}
+
 	/**
 	 * <code>&lt;alice xmlns="http://some-namespace"&gt;bob&lt;/alice&gt;</code>
 	 */
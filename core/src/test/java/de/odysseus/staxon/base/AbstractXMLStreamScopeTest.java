@@ -54,7 +54,7 @@ public class AbstractXMLStreamScopeTest {
 		Assert.assertNull(scope.getNonEmptyPrefix(XMLConstants.NULL_NS_URI));
 		Assert.assertNull(scope.getPrefix("http://foo"));
 		Assert.assertTrue(scope.isStartTagClosed());
-		Assert.assertNull(scope.getAttributes());
+		Assert.assertEquals(0, scope.getAttributeCount());
 	}
 
 	@Test
@@ -72,7 +72,7 @@ public class AbstractXMLStreamScopeTest {
 		Assert.assertNull(scope.getNonEmptyPrefix(XMLConstants.NULL_NS_URI));
 		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getPrefix("http://foo"));
 		Assert.assertTrue(scope.isStartTagClosed());
-		Assert.assertNull(scope.getAttributes());
+		Assert.assertEquals(0, scope.getAttributeCount());
 		
 		Iterator<?> prefixes = scope.getPrefixes("http://foo");
 		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, prefixes.next());
@@ -118,7 +118,7 @@ public class AbstractXMLStreamScopeTest {
 		Assert.assertNull(scope.getNonEmptyPrefix(XMLConstants.NULL_NS_URI));
 		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getPrefix("http://foo"));
 		Assert.assertFalse(scope.isStartTagClosed());
-		Assert.assertNull(scope.getAttributes());
+		Assert.assertEquals(0, scope.getAttributeCount());
 
 		scope.setPrefix("bar", "http://bar");
 		Assert.assertEquals("bar", scope.getPrefix("http://bar"));
@@ -156,7 +156,7 @@ public class AbstractXMLStreamScopeTest {
 		Assert.assertNull(scope.getNonEmptyPrefix(XMLConstants.NULL_NS_URI));
 		Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getPrefix("http://foo"));
 		Assert.assertFalse(scope.isStartTagClosed());
-		Assert.assertNull(scope.getAttributes());
+		Assert.assertEquals(0, scope.getAttributeCount());
 
 		scope.setPrefix("bar", "http://bar");
 		Assert.assertEquals("bar", scope.getPrefix());
@@ -211,18 +211,18 @@ public class AbstractXMLStreamScopeTest {
 		scope.setPrefix("foo", "http://foo");
 		scope.setStartTagClosed(true);
 		
-		Assert.assertEquals(scope.getAttributes().size(), 6);
+		Assert.assertEquals(6, scope.getAttributeCount());
 		for (int i = 0; i < 3; i++) {
-			Assert.assertEquals("attr" + (i+1), scope.getAttributes().get(i).getLocalName());
-			Assert.assertEquals("value" + (i+1), scope.getAttributes().get(i).getValue());
-			Assert.assertEquals(XMLConstants.NULL_NS_URI, scope.getAttributes().get(i).getNamespaceURI());
-			Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getAttributes().get(i).getPrefix());
+			Assert.assertEquals("attr" + (i+1), scope.getAttributeLocalName(i));
+			Assert.assertEquals("value" + (i+1), scope.getAttributeValue(i));
+			Assert.assertEquals(XMLConstants.NULL_NS_URI, scope.getAttributeNamespaceURI(i));
+			Assert.assertEquals(XMLConstants.DEFAULT_NS_PREFIX, scope.getAttributePrefix(i));
 		}
 		for (int i = 3; i < 6; i++) {
-			Assert.assertEquals("attr" + (i+1), scope.getAttributes().get(i).getLocalName());
-			Assert.assertEquals("value" + (i+1), scope.getAttributes().get(i).getValue());
-			Assert.assertEquals("http://foo", scope.getAttributes().get(i).getNamespaceURI());
-			Assert.assertEquals("foo", scope.getAttributes().get(i).getPrefix());
+			Assert.assertEquals("attr" + (i+1), scope.getAttributeLocalName(i));
+			Assert.assertEquals("value" + (i+1), scope.getAttributeValue(i));
+			Assert.assertEquals("http://foo", scope.getAttributeNamespaceURI(i));
+			Assert.assertEquals("foo", scope.getAttributePrefix(i));
 		}
 	}
 
@@ -269,4 +269,79 @@ public class AbstractXMLStreamScopeTest {
 		scope.addAttribute("bar", "attr1", "http://foo", "value1");
 		scope.setStartTagClosed(true);
 	}
+
+	@Test
+	public void testManyAttributes() throws XMLStreamException {
+		TestScope scope = new TestScope(new TestScope(XMLConstants.NULL_NS_URI), XMLConstants.DEFAULT_NS_PREFIX, "test", null);
+		for (int i = 0; i < 100; i++) {
+			scope.addAttribute(XMLConstants.DEFAULT_NS_PREFIX, "attr" + i, XMLConstants.NULL_NS_URI, "value" + i);
+		}
+		scope.setStartTagClosed(true);
+		Assert.assertEquals(100, scope.getAttributeCount());
+		for (int i = 0; i < 100; i++) {
+			Assert.assertEquals("attr" + i, scope.getAttributeLocalName(i));
+			Assert.assertEquals("value" + i, scope.getAttributeValue(i));
+		}
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testAttributeIndexOutOfBounds() throws XMLStreamException {
+		TestScope scope = new TestScope(new TestScope(XMLConstants.NULL_NS_URI), XMLConstants.DEFAULT_NS_PREFIX, "test", null);
+		scope.addAttribute(XMLConstants.DEFAULT_NS_PREFIX, "attr", XMLConstants.NULL_NS_URI, "value");
+		scope.getAttributeValue(1);
+	}
+
+	@Test
+	public void testManyPrefixes() throws XMLStreamException {
+		TestScope root = new TestScope(XMLConstants.NULL_NS_URI);
+		TestScope scope = new TestScope(root, XMLConstants.DEFAULT_NS_PREFIX, "test", null);
+		int count = 4 * AbstractXMLStreamScope.BINDING_INDEX_THRESHOLD;
+		for (int i = 0; i < count; i++) {
+			scope.setPrefix("p" + i, "http://ns" + i);
+		}
+		scope.setPrefix("p0", "http://foo"); // rebind
+		scope.setStartTagClosed(true);
+		Assert.assertEquals("http://foo", scope.getNamespaceURI("p0"));
+		for (int i = 1; i < count; i++) {
+			Assert.assertEquals("http://ns" + i, scope.getNamespaceURI("p" + i));
+			Assert.assertEquals("p" + i, scope.getPrefix("http://ns" + i));
+		}
+		Assert.assertNull(scope.getPrefix("http://ns0"));
+		Assert.assertEquals("p0", scope.getPrefix("http://foo"));
+		Assert.assertEquals(XMLConstants.NULL_NS_URI, scope.getNamespaceURI("unbound"));
+
+		TestScope child = new TestScope(scope, "p7", "child", null);
+		child.setPrefix("p7", "http://bar");
+		child.setStartTagClosed(true);
+		Assert.assertEquals("http://bar", child.getNamespaceURI());
+		Assert.assertEquals("http://ns8", child.getNamespaceURI("p8"));
+		Assert.assertNull(child.getPrefix("http://ns7"));
+		Iterator<String> prefixes = child.getPrefixes("http://bar");
+		Assert.assertEquals("p7", prefixes.next());
+		Assert.assertFalse(prefixes.hasNext());
+	}
+
+	@Test
+	public void testCachedLookupAfterRebind() throws XMLStreamException {
+		TestScope scope = new TestScope(XMLConstants.NULL_NS_URI);
+		scope = new TestScope(scope, XMLConstants.DEFAULT_NS_PREFIX, "root", null);
+		scope.setPrefix("foo", "http://foo");
+		TestScope bound = scope;
+		for (int i = 0; i < 100; i++) {
+			scope = new TestScope(scope, XMLConstants.DEFAULT_NS_PREFIX, "child", null);
+			scope.setStartTagClosed(true);
+		}
+		Assert.assertEquals("http://foo", scope.getNamespaceURI("foo"));
+		Assert.assertEquals("foo", scope.getPrefix("http://foo"));
+		Assert.assertNull(scope.getPrefix("http://bar"));
+
+		bound.setPrefix("foo", "http://bar");
+		Assert.assertEquals("http://bar", scope.getNamespaceURI("foo"));
+		Assert.assertEquals("foo", scope.getPrefix("http://bar"));
+		Assert.assertNull(scope.getPrefix("http://foo"));
+
+		scope.getParent().setPrefix("foo", "http://foo");
+		Assert.assertEquals("http://foo", scope.getNamespaceURI("foo"));
+		Assert.assertEquals("http://bar", scope.getParent().getParent().getNamespaceURI("foo"));
+	}
 }
@@ -371,4 +371,20 @@ public class AbstractXMLStreamWriterTest {
 		writer.flush();
 		Assert.assertEquals("<foo>&bar;</foo>", writer.toString());
 	}
+
+	@Test
+	public void testRecycledScopes() throws XMLStreamException {
+		XMLStreamWriter writer = createXMLStreamWriter(false);
+		writer.writeStartElement("alice");
+		writer.writeStartElement("p", "bob", "http://p");
+		writer.writeNamespace("p", "http://p");
+		writer.writeEndElement();
+		writer.writeEmptyElement("bob");
+		writer.writeStartElement("bob");
+		Assert.assertNull(writer.getPrefix("http://p"));
+		writer.writeEndElement();
+		writer.writeEndElement();
+		writer.flush();
+		Assert.assertEquals("<alice><p:bob xmlns:p=\"http://p\"></p:bob><bob/><bob></bob></alice>", writer.toString());
+	}
 }
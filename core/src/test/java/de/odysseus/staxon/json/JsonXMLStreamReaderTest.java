@@ -17,15 +17,24 @@ package de.odysseus.staxon.json;
 
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.odysseus.staxon.json.stream.NonBlockingJsonStreamSource;
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
 public class JsonXMLStreamReaderTest {
 	void verify(XMLStreamReader reader, int expectedEventType, String expectedLocalName, String expectedText) {
 		Assert.assertEquals(expectedEventType, reader.getEventType());
@@ -52,6 +61,82 @@ public class JsonXMLStreamReaderTest {
 		reader.close();
 	}
 
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;bob&gt;"david"&lt;/bob&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testTextCharacters() throws Exception {
+		String input = "{\"alice\":{\"bob\":[\"charlie\",\"\\\"david\\\"\"]}}";
+		XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		char[] buffer = reader.getTextCharacters();
+		Assert.assertEquals("charlie", new String(buffer, reader.getTextStart(), reader.getTextLength()));
+		Assert.assertSame(buffer, reader.getTextCharacters());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.CHARACTERS, reader.next());
+		Assert.assertSame(buffer, reader.getTextCharacters()); // reused
+		Assert.assertEquals("\"david\"", new String(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength()));
+		char[] target = new char[10];
+		Assert.assertEquals(5, reader.getTextCharacters(2, target, 1, 5));
+		Assert.assertEquals("avid\"", new String(target, 1, 5));
+		Assert.assertEquals(3, reader.getTextCharacters(4, target, 0, 5));
+		Assert.assertEquals("id\"", new String(target, 0, 3));
+		reader.close();
+	}
+
+	/**
+	 * Name splits are shared by readers of a factory.
+	 */
+	@Test
+	public void testSharedNameParts() throws Exception {
+		String input = "{\"p:alice\":{\"@xmlns:p\":\"urn:p\",\"@p:bob\":\"edgar\"}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		String localName = null;
+		for (int i = 0; i < 2; i++) {
+			XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+			reader.nextTag();
+			Assert.assertEquals(new QName("urn:p", "alice", "p"), reader.getName());
+			Assert.assertEquals(new QName("urn:p", "bob", "p"), reader.getAttributeName(0));
+			if (localName == null) {
+				localName = reader.getLocalName();
+			} else {
+				Assert.assertSame(localName, reader.getLocalName());
+			}
+			reader.close();
+		}
+	}
+
+	@Test
+	public void testTextChunks() throws Exception {
+		String input = "{\"alice\":{\"@bob\":\"charlie charlie\",\"$\":\"david david david\",\"edgar\":\"123456789\",\"felix\":\"x\"}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		factory.setProperty(JsonXMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		factory.setProperty(JsonXMLInputFactory.PROP_TEXT_CHUNK_SIZE, 4);
+		XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals("charlie charlie", reader.getAttributeValue(null, "bob")); // attributes are joined
+		int count = 0;
+		StringBuilder text = new StringBuilder();
+		while (reader.next() == XMLStreamConstants.CHARACTERS) {
+			Assert.assertTrue(reader.getTextLength() > 0);
+			text.append(reader.getText());
+			count++;
+		}
+		Assert.assertTrue(count > 1);
+		Assert.assertEquals("david david david", text.toString());
+		verify(reader, XMLStreamConstants.START_ELEMENT, "edgar", null);
+		Assert.assertEquals("123456789", reader.getElementText());
+		verify(reader, XMLStreamConstants.END_ELEMENT, "edgar", null);
+		Assert.assertEquals(XMLStreamConstants.START_ELEMENT, reader.nextTag());
+		Assert.assertEquals("x", reader.getElementText());
+		Assert.assertEquals(XMLStreamConstants.END_ELEMENT, reader.nextTag());
+		Assert.assertEquals(XMLStreamConstants.END_DOCUMENT, reader.next());
+		reader.close();
+	}
+
 	/**
 	 * <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;david&gt;edgar&lt;/david&gt;&lt;/alice&gt;</code>
 	 */
@@ -329,6 +414,8 @@ public class JsonXMLStreamReaderTest {
 		Assert.assertTrue(reader.hasNumber());
 		Assert.assertFalse(reader.hasBoolean());
 		Assert.assertEquals(new BigDecimal("123.40"), reader.getNumber());
+		Assert.assertSame(reader.getNumber(), reader.getNumber()); // parsed once per event
+		Assert.assertTrue(reader.hasNumber());
 		reader.next();
 		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
 		reader.next();
@@ -419,4 +506,233 @@ public class JsonXMLStreamReaderTest {
 		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
 		reader.close();
 	}
+
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;...&lt;/bob&gt;&lt;david&gt;edgar&lt;/david&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testSkipElement() throws Exception {
+		String input = "{\"alice\":{\"bob\":{\"x\":{\"y\":[1,{\"z\":\"}]\\\"\"}]},\"w\":[true,false]},\"david\":\"edgar\"}}";
+		JsonXMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input));
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "bob", null);
+		reader.skipElement();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "bob", null);
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "david", null);
+		reader.skipElement();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "david", null);
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		reader.close();
+	}
+
+	@Test
+	public void testSkipElementArray() throws Exception {
+		String input = "{\"alice\":{\"bob\":[{\"x\":1},{\"x\":2}],\"david\":{\"y\":[{\"z\":3},{\"z\":4}]}},\"edgar\":\"charlie\"}";
+		JsonXMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input));
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		reader.skipElement();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.nextTag();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "edgar", null);
+		Assert.assertEquals("charlie", reader.getElementText());
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		reader.close();
+	}
+
+	String describe(XMLStreamReader reader) {
+		StringBuilder builder = new StringBuilder().append(reader.getEventType());
+		if (reader.isStartElement() || reader.isEndElement()) {
+			builder.append(':').append(reader.getName());
+			for (int i = 0; i < reader.getNamespaceCount(); i++) {
+				builder.append(" xmlns:").append(reader.getNamespacePrefix(i)).append('=').append(reader.getNamespaceURI(i));
+			}
+		}
+		if (reader.isStartElement()) {
+			for (int i = 0; i < reader.getAttributeCount(); i++) {
+				builder.append(' ').append(reader.getAttributeName(i)).append('=').append(reader.getAttributeValue(i));
+			}
+		}
+		if (reader.hasText()) {
+			builder.append(':').append(reader.getText());
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Feed input in chunks and compare events to those of a blocking reader
+	 */
+	@Test
+	public void testNonBlocking() throws Exception {
+		String input = "{\"alice\":{\"@xmlns\":{\"$\":\"http://foo\",\"p\":\"http://bar\"},\"@p:a\":\"x\",\"$\":\"text\",\"bob\":[1,true,null,{\"charlie\":\"\u00e4\u20ac\"}]}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+
+		List<String> expected = new ArrayList<String>();
+		XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		expected.add(describe(reader));
+		while (reader.hasNext()) {
+			reader.next();
+			expected.add(describe(reader));
+		}
+		reader.close();
+
+		byte[] bytes = input.getBytes("UTF-8");
+		for (int chunkSize = 1; chunkSize < 8; chunkSize++) {
+			List<String> events = new ArrayList<String>();
+			NonBlockingJsonStreamSource source = new JsonStreamFactoryImpl().createNonBlockingJsonStreamSource();
+			JsonXMLStreamReader nonBlockingReader = factory.createXMLStreamReader(source);
+			int position = 0;
+			while (true) {
+				while (nonBlockingReader.needsInput()) {
+					if (position == bytes.length) {
+						source.endOfInput();
+					} else {
+						int length = Math.min(chunkSize, bytes.length - position);
+						source.feed(ByteBuffer.wrap(bytes, position, length));
+						position += length;
+					}
+				}
+				if (!nonBlockingReader.hasNext()) {
+					break;
+				}
+				nonBlockingReader.next();
+				events.add(describe(nonBlockingReader));
+			}
+			nonBlockingReader.close();
+			Assert.assertEquals("chunk size " + chunkSize, expected, events);
+		}
+	}
+
+	/**
+	 * Reader created before any input is fed, driven by <code>next()</code> only
+	 */
+	@Test
+	public void testNonBlockingIncomplete() throws Exception {
+		NonBlockingJsonStreamSource source = new JsonStreamFactoryImpl().createNonBlockingJsonStreamSource();
+		JsonXMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(source);
+		Assert.assertEquals(JsonXMLStreamReader.EVENT_INCOMPLETE, reader.getEventType());
+		Assert.assertEquals("JsonXMLStreamReader(EVENT_INCOMPLETE)", reader.toString());
+		Assert.assertTrue(reader.hasNext());
+		Assert.assertTrue(reader.needsInput());
+		Assert.assertEquals(JsonXMLStreamReader.EVENT_INCOMPLETE, reader.next());
+
+		byte[] bytes = "{\"alice\":\"bob\"}".getBytes("UTF-8");
+		List<Integer> events = new ArrayList<Integer>();
+		int position = 0;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event != JsonXMLStreamReader.EVENT_INCOMPLETE) {
+				events.add(event);
+			} else if (position == bytes.length) {
+				source.endOfInput();
+			} else {
+				source.feed(ByteBuffer.wrap(bytes, position++, 1));
+			}
+		}
+		Assert.assertEquals(Arrays.asList(XMLStreamConstants.START_DOCUMENT, XMLStreamConstants.START_ELEMENT,
+				XMLStreamConstants.CHARACTERS, XMLStreamConstants.END_ELEMENT, XMLStreamConstants.END_DOCUMENT), events);
+		Assert.assertFalse(reader.needsInput());
+		reader.close();
+	}
+
+	@Test
+	public void testDeepNesting() throws Exception {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			input.append("{\"a\":");
+		}
+		input.append("\"bob\"");
+		for (int i = 0; i < 200; i++) {
+			input.append("}");
+		}
+		XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input.toString()));
+		int depth = 0;
+		int maxDepth = 0;
+		while (reader.hasNext()) {
+			switch (reader.next()) {
+			case XMLStreamConstants.START_ELEMENT:
+				maxDepth = Math.max(maxDepth, ++depth);
+				break;
+			case XMLStreamConstants.END_ELEMENT:
+				depth--;
+				break;
+			}
+		}
+		reader.close();
+		Assert.assertEquals(200, maxDepth);
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testMaxDepth() throws Exception {
+		String input = "{\"alice\":{\"bob\":{\"charlie\":\"david\"}}}";
+		XMLStreamReader reader = new JsonXMLInputFactory(new JsonXMLConfigBuilder().maxDepth(2).build()).createXMLStreamReader(new StringReader(input));
+		while (reader.hasNext()) {
+			reader.next();
+		}
+	}
+
+	/**
+	 * Nested objects produce many events at once, exceeding the initial event queue capacity.
+	 */
+	@Test
+	public void testManyQueuedEvents() throws Exception {
+		StringBuilder input = new StringBuilder();
+		for (int i = 0; i < 20; i++) {
+			input.append("{\"e").append(i).append("\":");
+		}
+		input.append("\"bob\"");
+		for (int i = 0; i < 20; i++) {
+			input.append("}");
+		}
+		XMLStreamReader reader = new JsonXMLInputFactory().createXMLStreamReader(new StringReader(input.toString()));
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		Location location = reader.getLocation();
+		int column = location.getColumnNumber();
+		for (int i = 0; i < 20; i++) {
+			reader.next();
+			verify(reader, XMLStreamConstants.START_ELEMENT, "e" + i, null);
+		}
+		reader.next();
+		verify(reader, XMLStreamConstants.CHARACTERS, null, "bob");
+		for (int i = 19; i >= 0; i--) {
+			reader.next();
+			verify(reader, XMLStreamConstants.END_ELEMENT, "e" + i, null);
+		}
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		reader.close();
+		Assert.assertEquals(column, location.getColumnNumber());
+	}
+
+	@Test
+	public void testNoLocation() throws Exception {
+		String input = "{\"alice\":{\"bob\":\"charlie\"}}";
+		JsonXMLInputFactory factory = new JsonXMLInputFactory();
+		factory.setProperty(JsonXMLInputFactory.PROP_TRACK_LOCATION, false);
+		XMLStreamReader reader = factory.createXMLStreamReader(new StringReader(input));
+		verify(reader, XMLStreamConstants.START_DOCUMENT, null, null);
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "alice", null);
+		Assert.assertEquals(-1, reader.getLocation().getLineNumber());
+		reader.next();
+		verify(reader, XMLStreamConstants.START_ELEMENT, "bob", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.CHARACTERS, null, "charlie");
+		Assert.assertEquals(24, reader.getLocation().getCharacterOffset());
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "bob", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_ELEMENT, "alice", null);
+		reader.next();
+		verify(reader, XMLStreamConstants.END_DOCUMENT, null, null);
+		reader.close();
+	}
 }
@@ -24,6 +24,9 @@ import javax.xml.stream.XMLStreamWriter;
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.odysseus.staxon.json.stream.JsonStreamFactory;
+import de.odysseus.staxon.json.stream.JsonStreamTarget;
+
 public class JsonXMLStreamWriterTest {
 	/**
 	 * <code>&lt;alice&gt;bob&lt;/alice&gt;</code>
@@ -357,4 +360,123 @@ public class JsonXMLStreamWriterTest {
 		writer.close();
 		Assert.assertEquals("{\"alice\":{\"$charlie\":\"david\",\"$\":\"bob\"}}", result.toString());
 	}
+
+	/**
+	 * <code>&lt;alice charlie="david"&gt;bob&lt;/alice&gt;</code>, text written in several chunks
+	 */
+	@Test
+	public void testTextChunks() throws Exception {
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeAttribute("charlie", "david");
+		writer.writeCharacters(" ");
+		writer.writeCharacters("b");
+		writer.writeCharacters("o");
+		writer.writeCharacters("b ");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"@charlie\":\"david\",\"$\":\" bob \"}}", result.toString());
+	}
+
+	/**
+	 * <code>&lt;alice&gt; &lt;bob/&gt;&lt;/alice&gt;</code>, whitespace chunks are skipped
+	 */
+	@Test
+	public void testWhitespaceChunks() throws Exception {
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("\n");
+		writer.writeCharacters("  ");
+		writer.writeEmptyElement("bob");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":null}}", result.toString());
+	}
+
+	/**
+	 * <code>&lt;alice&gt;bob&lt;charlie/&gt;&lt;/alice&gt;</code>, streamed text followed by element
+	 */
+	@Test(expected = XMLStreamException.class)
+	public void testTextChunksMixedContent() throws Exception {
+		XMLStreamWriter writer = new JsonXMLOutputFactory().createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters(" ");
+		writer.writeCharacters("bob");
+		writer.writeEmptyElement("charlie");
+	}
+
+	/**
+	 * <code>&lt;a&gt;&lt;a&gt;...&lt;/a&gt;&lt;/a&gt;</code>
+	 */
+	@Test
+	public void testDeepNesting() throws Exception {
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = new JsonXMLOutputFactory(new JsonXMLConfigBuilder().prettyPrint(true).build()).createXMLStreamWriter(result);
+		writer.writeStartDocument();
+		for (int i = 0; i < 200; i++) {
+			writer.writeStartElement("a");
+		}
+		writer.writeCharacters("bob");
+		for (int i = 0; i < 200; i++) {
+			writer.writeEndElement();
+		}
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertTrue(result.toString().contains("\n" + repeat("\t", 200) + "\"a\" : \"bob\"\n"));
+	}
+
+	@Test(expected = XMLStreamException.class)
+	public void testMaxDepth() throws Exception {
+		XMLStreamWriter writer = new JsonXMLOutputFactory(new JsonXMLConfigBuilder().maxDepth(2).build()).createXMLStreamWriter(new StringWriter());
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeStartElement("bob");
+		writer.writeStartElement("charlie");
+	}
+
+	/**
+	 * <code>&lt;p:alice xmlns:p="http://p" p:bob="charlie"/&gt;</code>
+	 */
+	private String writeFieldNames(FieldNameCache fieldNames) throws Exception {
+		StringWriter result = new StringWriter();
+		JsonStreamTarget target = JsonStreamFactory.newFactory().createJsonStreamTarget(result, false);
+		XMLStreamWriter writer = new JsonXMLStreamWriter(target, null, true, false, "$", fieldNames, JsonXMLConfigImpl.DEFAULT_MAX_DEPTH);
+		writer.writeStartDocument();
+		writer.writeStartElement("p", "alice", "http://p");
+		writer.writeNamespace("p", "http://p");
+		writer.writeAttribute("p", "http://p", "bob", "charlie");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testSharedFieldNames() throws Exception {
+		FieldNameCache fieldNames = new FieldNameCache(FieldNameCache.MAX_SIZE, ':', "@");
+		Assert.assertEquals("{\"p:alice\":{\"@p:bob\":\"charlie\"}}", writeFieldNames(fieldNames));
+		Assert.assertEquals(2, fieldNames.size());
+		Assert.assertEquals("{\"p:alice\":{\"@p:bob\":\"charlie\"}}", writeFieldNames(fieldNames));
+		Assert.assertEquals(2, fieldNames.size());
+		Assert.assertSame(fieldNames.getElementName("p", "alice"), fieldNames.getElementName("p", "alice"));
+
+		fieldNames = new FieldNameCache(1, ':', "@");
+		Assert.assertEquals("{\"p:alice\":{\"@p:bob\":\"charlie\"}}", writeFieldNames(fieldNames));
+		Assert.assertEquals(1, fieldNames.size());
+	}
+
+	private static String repeat(String s, int count) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < count; i++) {
+			builder.append(s);
+		}
+		return builder.toString();
+	}
 }
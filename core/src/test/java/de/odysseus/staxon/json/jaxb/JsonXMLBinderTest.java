@@ -233,6 +233,81 @@ public class JsonXMLBinderTest {
 		Assert.assertNotNull(new JsonXMLBinder().unmarshal(SampleTypeWithNamespace.class, config, unmarshaller, reader));
 	}
 	
+	@Test
+	public void testFactoryCache() throws Exception {
+		JsonXMLBinder binder = new JsonXMLBinder();
+		JsonXML config = JsonXMLDefault.class.getAnnotation(JsonXML.class);
+		JsonXMLInputFactory inputFactory = binder.getInputFactory(SampleRootElement.class, config);
+		Assert.assertSame(inputFactory, binder.getInputFactory(SampleRootElement.class, config));
+		Assert.assertNotSame(inputFactory, binder.getInputFactory(SampleType.class, config));
+		Assert.assertNotSame(inputFactory, binder.getInputFactory(SampleRootElement.class, JsonXMLCustom.class.getAnnotation(JsonXML.class)));
+		JsonXMLOutputFactory outputFactory = binder.getOutputFactory(SampleRootElement.class, config);
+		Assert.assertSame(outputFactory, binder.getOutputFactory(SampleRootElement.class, config));
+		Assert.assertEquals(2, binder.getFactoryCacheHits());
+		Assert.assertEquals(4, binder.getFactoryCacheMisses());
+
+		JAXBContext context = JAXBContext.newInstance(SampleRootElement.class);
+		for (int i = 0; i < 2; i++) {
+			StringWriter writer = new StringWriter();
+			binder.writeObject(SampleRootElement.class, config, context, writer, new SampleRootElement());
+			Assert.assertEquals("{\"sampleRootElement\":null}", writer.toString());
+		}
+		Assert.assertEquals(4, binder.getFactoryCacheHits());
+		Assert.assertEquals(4, binder.getFactoryCacheMisses());
+	}
+
+	@Test
+	public void testMarshallerPool() throws Exception {
+		JsonXMLBinder binder = new JsonXMLBinder(new JsonXMLRootProvider(), false);
+		JsonXML config = JsonXMLDefault.class.getAnnotation(JsonXML.class);
+		JAXBContext context = JAXBContext.newInstance(SampleRootElement.class);
+
+		StringWriter writer = new StringWriter();
+		binder.writeArray(SampleRootElement.class, config, context, writer, Arrays.asList(new SampleRootElement()));
+		Assert.assertEquals("{\"sampleRootElement\":[null]}", writer.toString());
+		Assert.assertEquals(0, binder.getMarshallerPoolHits());
+		Assert.assertEquals(1, binder.getMarshallerPoolMisses());
+
+		// pooled marshaller must have been reset (no fragment)
+		writer = new StringWriter();
+		binder.writeObject(SampleRootElement.class, config, context, writer, new SampleRootElement());
+		Assert.assertEquals("{\"sampleRootElement\":null}", writer.toString());
+		Assert.assertEquals(1, binder.getMarshallerPoolHits());
+
+		for (int i = 0; i < 2; i++) {
+			binder.readObject(SampleRootElement.class, config, context, new StringReader("{\"sampleRootElement\":null}"));
+		}
+		Assert.assertEquals(2, binder.getMarshallerPoolHits());
+		Assert.assertEquals(2, binder.getMarshallerPoolMisses());
+
+		binder = new JsonXMLBinder(new JsonXMLRootProvider(), true, 0);
+		for (int i = 0; i < 2; i++) {
+			binder.writeObject(SampleRootElement.class, config, context, new StringWriter(), new SampleRootElement());
+		}
+		Assert.assertEquals(0, binder.getMarshallerPoolHits());
+		Assert.assertEquals(2, binder.getMarshallerPoolMisses());
+	}
+
+	@Test
+	public void testStreamArray() throws Exception {
+		JsonXMLBinder binder = new JsonXMLBinder();
+		JsonXML config = JsonXMLDefault.class.getAnnotation(JsonXML.class);
+		JAXBContext context = JAXBContext.newInstance(SampleRootElement.class);
+		String json = "[{\"sampleRootElement\":{\"@attribute\":\"hello\"}},null,{\"sampleRootElement\":{\"@attribute\":\"world\"}}]";
+		JsonXMLArrayIterator<SampleRootElement> iterator =
+				binder.streamArray(SampleRootElement.class, config, context, new StringReader(json));
+		Assert.assertTrue(iterator.hasNext());
+		Assert.assertEquals("hello", iterator.next().attribute);
+		Assert.assertTrue(iterator.hasNext());
+		Assert.assertNull(iterator.next());
+		Assert.assertTrue(iterator.hasNext());
+		Assert.assertEquals("world", iterator.next().attribute);
+		Assert.assertFalse(iterator.hasNext());
+		iterator.close();
+
+		Assert.assertNull(binder.streamArray(SampleRootElement.class, config, context, new StringReader("null")));
+	}
+
 	@Test
 	public void testWriteObjectSampleRootElement() throws Exception {
 		JsonXML config = JsonXMLDefault.class.getAnnotation(JsonXML.class);
@@ -15,7 +15,15 @@
  */
 package de.odysseus.staxon.json.jaxb;
 
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import junit.framework.Assert;
 
@@ -62,4 +70,54 @@ public class JsonXMLMapperTest {
 		Assert.assertEquals("{\"ns2:sampleTypeWithNamespace\":{\"@xmlns:ns2\":\"urn:staxon:jaxb:test\"}}",
 				writer.toString()); // TODO don't rely on prefix "ns2"
 	}
+
+	@Test
+	public void testStreamArray() throws Exception {
+		JsonXMLMapper<SampleRootElement> mapper = new JsonXMLMapper<SampleRootElement>(SampleRootElement.class);
+		String json = "[{\"sampleRootElement\":{\"@attribute\":\"hello\"}},{\"sampleRootElement\":{\"@attribute\":\"world\"}}]";
+		JsonXMLArrayIterator<SampleRootElement> iterator = mapper.streamArray(new StringReader(json));
+		List<String> attributes = new ArrayList<String>();
+		while (iterator.hasNext()) {
+			attributes.add(iterator.next().attribute);
+		}
+		Assert.assertEquals(Arrays.asList("hello", "world"), attributes);
+
+		iterator = mapper.streamArray(new StringReader(json));
+		Assert.assertEquals("hello", iterator.next().attribute);
+		iterator.close(); // abandon
+		Assert.assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testConcurrentUse() throws Exception {
+		final JsonXMLMapper<SampleRootElement> mapper = new JsonXMLMapper<SampleRootElement>(SampleRootElement.class);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int t = 0; t < 8; t++) {
+				final String text = "thread" + t;
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						for (int i = 0; i < 100; i++) {
+							SampleRootElement value = new SampleRootElement();
+							value.attribute = text;
+							value.elements = Arrays.asList(text + i);
+							StringWriter writer = new StringWriter();
+							mapper.writeObject(writer, value);
+							SampleRootElement result = mapper.readObject(new StringReader(writer.toString()));
+							Assert.assertEquals(text, result.attribute);
+							Assert.assertEquals(value.elements, result.elements);
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
 }
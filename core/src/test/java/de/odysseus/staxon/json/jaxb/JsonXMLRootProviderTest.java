@@ -15,7 +15,10 @@
  */
 package de.odysseus.staxon.json.jaxb;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 
 import javax.xml.XMLConstants;
 import javax.xml.bind.JAXBElement;
@@ -114,4 +117,61 @@ public class JsonXMLRootProviderTest {
 		Assert.assertEquals(SampleTypeWithNamespace.class, sampleTypeWithNamespace.getDeclaredType());
 		Assert.assertNull(provider.createElement(EmptyType.class, new EmptyType()));
 	}
+
+	@Test
+	public void testMetadataCache() throws JAXBException {
+		final int[] lookups = new int[1];
+		JsonXMLRootProvider provider = new JsonXMLRootProvider() {
+			@Override
+			protected Method getXmlElementDeclMethod(Class<?> type) {
+				lookups[0]++;
+				return super.getXmlElementDeclMethod(type);
+			}
+		};
+		QName name = provider.getName(SampleType.class);
+		int count = lookups[0];
+		for (int i = 0; i < 3; i++) {
+			Assert.assertSame(name, provider.getName(SampleType.class));
+			Assert.assertEquals(name, provider.createElement(SampleType.class, new SampleType()).getName());
+		}
+		Assert.assertEquals(count, lookups[0]);
+	}
+
+	/**
+	 * The default object factory is loaded via the type's class loader, not the context class loader.
+	 */
+	@Test
+	public void testObjectFactoryClassLoader() throws JAXBException {
+		Thread thread = Thread.currentThread();
+		ClassLoader contextClassLoader = thread.getContextClassLoader();
+		thread.setContextClassLoader(new URLClassLoader(new URL[0], null));
+		try {
+			JsonXMLRootProvider provider = new JsonXMLRootProvider();
+			Assert.assertEquals(new QName("sampleType"), provider.createElement(SampleType.class, new SampleType()).getName());
+		} finally {
+			thread.setContextClassLoader(contextClassLoader);
+		}
+	}
+
+	/**
+	 * Cached metadata does not keep a type's class loader alive.
+	 */
+	@Test
+	public void testClassLoaderNotRetained() throws Exception {
+		JsonXMLRootProvider provider = new JsonXMLRootProvider();
+		URL classes = SampleType.class.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader classLoader = new URLClassLoader(new URL[]{ classes }, null);
+		Class<?> type = classLoader.loadClass(SampleType.class.getName());
+		Assert.assertNotSame(SampleType.class, type);
+		Assert.assertEquals(new QName("sampleType"), provider.createElement(type, type.newInstance()).getName());
+		WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(classLoader);
+		classLoader = null;
+		type = null;
+		for (int i = 0; i < 10 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assert.assertNull(reference.get());
+		Assert.assertNotNull(provider.getName(SampleType.class));
+	}
 }
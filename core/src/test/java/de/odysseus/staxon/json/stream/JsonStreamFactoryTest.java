@@ -0,0 +1,54 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.impl.JsonStreamFactoryImpl;
+
+public class JsonStreamFactoryTest {
+	public static class CustomFactory extends JsonStreamFactoryImpl {
+	}
+
+	@After
+	public void cleanup() {
+		System.clearProperty(JsonStreamFactory.class.getName());
+		JsonStreamFactory.reset();
+	}
+
+	@Test
+	public void testNewFactory() {
+		JsonStreamFactory.reset();
+		JsonStreamFactory factory = JsonStreamFactory.newFactory();
+		Assert.assertEquals(JsonStreamFactoryImpl.class, factory.getClass());
+		Assert.assertNotSame(factory, JsonStreamFactory.newFactory());
+	}
+
+	@Test
+	public void testNewFactoryCached() {
+		JsonStreamFactory.reset();
+		System.setProperty(JsonStreamFactory.class.getName(), CustomFactory.class.getName());
+		Assert.assertEquals(CustomFactory.class, JsonStreamFactory.newFactory().getClass());
+
+		System.clearProperty(JsonStreamFactory.class.getName());
+		Assert.assertEquals(CustomFactory.class, JsonStreamFactory.newFactory().getClass()); // cached
+
+		JsonStreamFactory.reset();
+		Assert.assertEquals(JsonStreamFactoryImpl.class, JsonStreamFactory.newFactory().getClass());
+	}
+}
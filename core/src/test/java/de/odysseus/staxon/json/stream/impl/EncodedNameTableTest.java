@@ -0,0 +1,98 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.odysseus.staxon.json.stream.JsonStreamTarget;
+import de.odysseus.staxon.json.stream.impl.EncodedNameTable.EncodedName;
+
+public class EncodedNameTableTest {
+	@Test
+	public void testLookup() throws IOException {
+		EncodedNameTable table = new EncodedNameTable(16, null);
+		EncodedName alice = table.lookup("alice");
+		Assert.assertEquals("\"alice\":", new String(alice.chars));
+		Assert.assertEquals("\"alice\":", new String(alice.bytes(), "UTF-8"));
+		Assert.assertSame(alice, table.lookup("alice"));
+		Assert.assertEquals(1, table.size());
+	}
+
+	@Test
+	public void testEncode() throws IOException {
+		EncodedNameTable table = new EncodedNameTable(16, " ");
+		EncodedName name = table.lookup("\u00e4\"\n");
+		Assert.assertEquals("\"\u00e4\\\"\\n\" :", new String(name.chars));
+		Assert.assertEquals("\"\u00e4\\\"\\n\" :", new String(name.bytes(), "UTF-8"));
+	}
+
+	@Test
+	public void testBounded() {
+		EncodedNameTable table = new EncodedNameTable(2, null);
+		table.lookup("alice");
+		table.lookup("bob");
+		Assert.assertNull(table.lookup("edgar"));
+		Assert.assertEquals(2, table.size());
+		Assert.assertNotNull(table.lookup("bob"));
+	}
+
+	@Test
+	public void testTarget() throws IOException {
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		StringWriter writer = new StringWriter();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		for (JsonStreamTarget target : new JsonStreamTarget[]{ factory.createJsonStreamTarget(writer, true), factory.createJsonStreamTarget(stream, true) }) {
+			target.startObject();
+			target.name("alice");
+			target.value("bob");
+			target.name("\u00e4");
+			target.value("charlie");
+			target.endObject();
+			target.close();
+		}
+		Assert.assertEquals("{\n\t\"alice\" : \"bob\",\n\t\"\u00e4\" : \"charlie\"\n}", writer.toString());
+		Assert.assertEquals(writer.toString(), new String(stream.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testUncachedNames() throws IOException {
+		EncodedNameTable table = new EncodedNameTable(1, " ");
+		StringWriter writer = new StringWriter();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		JsonStreamTarget[] targets = {
+				new JsonStreamTargetImpl(new JsonStreamTargetImpl.WriterOutput(writer, false), table, " ", null, null),
+				new JsonStreamTargetImpl(new Utf8Output(stream, false), null, " ", null, null)
+		};
+		for (JsonStreamTarget target : targets) {
+			target.startObject();
+			target.name("alice");
+			target.value("bob");
+			target.name("\u00e4\"");
+			target.value("charlie");
+			target.endObject();
+			target.close();
+		}
+		Assert.assertEquals(1, table.size());
+		Assert.assertEquals("{ \"alice\" : \"bob\", \"\u00e4\\\"\" : \"charlie\" }", writer.toString());
+		Assert.assertEquals(writer.toString(), new String(stream.toByteArray(), "UTF-8"));
+	}
+}
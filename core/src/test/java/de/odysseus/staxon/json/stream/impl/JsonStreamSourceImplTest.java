@@ -15,6 +15,7 @@
  */
 package de.odysseus.staxon.json.stream.impl;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -28,6 +29,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.JsonStreamSource.ValueType;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
 import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
 
@@ -246,6 +248,38 @@ public class JsonStreamSourceImplTest {
 		source.close();
 	}
 
+	@Test
+	public void testTextSlice() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			builder.append("0123456789");
+		}
+		String input = "[\"abc\",\"a\\tb\",-1.5,true,\"" + builder + "\"]";
+		Yylex scanner = new Yylex(new StringReader(input));
+
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.START_ARRAY, scanner.nextSymbol());
+		Assert.assertNull(scanner.getTextSlice());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals("abc", scanner.getTextSlice().toString());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals("a\tb", scanner.getTextSlice().toString());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.NUMBER, scanner.nextSymbol());
+		Assert.assertEquals("-1.5", scanner.getTextSlice().toString());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.TRUE, scanner.nextSymbol());
+		Assert.assertNull(scanner.getTextSlice());
+		Assert.assertEquals("true", scanner.getText());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals(builder.toString(), scanner.getText());
+		Assert.assertSame(scanner.getText(), scanner.getText());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.END_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(JsonStreamSourceImpl.Scanner.Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
 	@Test
 	public void testLiteralValues() throws IOException {
 		StringReader reader = new StringReader("[true,false,null]");
@@ -258,17 +292,17 @@ public class JsonStreamSourceImplTest {
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("true", value.text);
-		Assert.assertEquals(Boolean.TRUE, value.data);
+		Assert.assertEquals(Boolean.TRUE, value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("false", value.text);
-		Assert.assertEquals(Boolean.FALSE, value.data);
+		Assert.assertEquals(Boolean.FALSE, value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertNull(value.text);
-		Assert.assertNull(value.data);
+		Assert.assertNull(value.getData());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -289,32 +323,32 @@ public class JsonStreamSourceImplTest {
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("123", value.text);
-		Assert.assertEquals(new BigInteger("123"), value.data);
+		Assert.assertEquals(new BigInteger("123"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12e3", value.text);
-		Assert.assertEquals(new BigDecimal("12e3"), value.data);
+		Assert.assertEquals(new BigDecimal("12e3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12E3", value.text);
-		Assert.assertEquals(new BigDecimal("12E3"), value.data);
+		Assert.assertEquals(new BigDecimal("12E3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12.3", value.text);
-		Assert.assertEquals(new BigDecimal("12.3"), value.data);
+		Assert.assertEquals(new BigDecimal("12.3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2e3", value.text);
-		Assert.assertEquals(new BigDecimal("1.2e3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2e3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2E3", value.text);
-		Assert.assertEquals(new BigDecimal("1.2E3"), value.data);
+		Assert.assertEquals(new BigDecimal("1.2E3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -323,6 +357,38 @@ public class JsonStreamSourceImplTest {
 		source.close();
 	}	
 
+	@Test
+	public void testNumberPrimitives() throws IOException {
+		StringReader reader = new StringReader("[123,-9223372036854775808,1.5e2,\"bob\"]");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(reader), true);
+		source.startArray();
+
+		JsonStreamSource.Value value = source.value();
+		Assert.assertTrue(value.isNumber());
+		Assert.assertEquals(123L, value.longValue());
+		Assert.assertEquals(123.0, value.doubleValue());
+		Assert.assertEquals(new BigInteger("123"), value.getData());
+
+		value = source.value();
+		Assert.assertEquals(Long.MIN_VALUE, value.longValue());
+
+		value = source.value();
+		Assert.assertEquals(150.0, value.doubleValue());
+		Assert.assertEquals(150L, value.longValue());
+
+		value = source.value();
+		Assert.assertFalse(value.isNumber());
+		try {
+			value.longValue();
+			Assert.fail();
+		} catch (NumberFormatException e) {
+			// expected
+		}
+
+		source.endArray();
+		source.close();
+	}
+
 	@Test
 	public void testWhitespace() throws IOException {
 		StringReader reader = new StringReader("{\r  \"alice\" : \"bob\"\r\n}");
@@ -400,6 +466,57 @@ public class JsonStreamSourceImplTest {
 		source.close();
 	}
 
+	@Test
+	public void testLocationLineTerminators() throws IOException {
+		String input = "[\r\n\"alice\",\r\r\"bob\",\n\r\n\t{\r\n\"x\":[1]\n},\r\n\"charlie\"]";
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true);
+		source.startArray();
+		Assert.assertEquals("alice", source.value().text);
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals(7, source.getColumnNumber());
+		Assert.assertEquals("bob", source.value().text);
+		Assert.assertEquals(4, source.getLineNumber());
+		Assert.assertEquals(5, source.getColumnNumber());
+		source.skipValue();
+		Assert.assertEquals(8, source.getLineNumber());
+		Assert.assertEquals(1, source.getColumnNumber());
+		Assert.assertEquals("charlie", source.value().text);
+		Assert.assertEquals(9, source.getLineNumber());
+		Assert.assertEquals(9, source.getColumnNumber());
+		source.endArray();
+		source.close();
+	}
+
+	@Test
+	public void testNoLocation() throws IOException {
+		String input = "{\n\t\"alice\" : {\n\t\t\"bob\" : [ \"charlie\" ],\n\t\t\"edgar\" : \"david\"\n\t}\n}";
+		Yylex scanner = new Yylex(new StringReader(input));
+		scanner.setTrackLocation(false);
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(scanner, true);
+
+		Assert.assertEquals(-1, source.getLineNumber());
+		Assert.assertEquals(-1, source.getColumnNumber());
+		source.startObject();
+		Assert.assertEquals(0, source.getCharacterOffset());
+		Assert.assertEquals("alice", source.name());
+		Assert.assertEquals(9, source.getCharacterOffset());
+		source.startObject();
+		Assert.assertEquals("bob", source.name());
+		source.startArray();
+		Assert.assertEquals("charlie", source.value().text);
+		Assert.assertEquals(35, source.getCharacterOffset());
+		source.endArray();
+		Assert.assertEquals("edgar", source.name());
+		Assert.assertEquals("david", source.value().text);
+		source.endObject();
+		source.endObject();
+		Assert.assertEquals(63, source.getCharacterOffset());
+		Assert.assertEquals(-1, source.getLineNumber());
+		Assert.assertEquals(-1, source.getColumnNumber());
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
 	@Test
 	public void testInvalid_UnclosedArray() throws IOException {
 		readInvalid("{\"alice\":[\"bob\"}}", IOException.class, "Unclosed array");
@@ -439,4 +556,131 @@ public class JsonStreamSourceImplTest {
 	public void testInvalid_PrematureEOF() throws IOException {
 		readInvalid("[\"edgar\",\"david\"", IOException.class, "Premature EOF");
 	}
+
+	private long longValue(String json) throws IOException {
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(new StringReader(json)), true);
+		source.startArray();
+		try {
+			return source.longValue();
+		} finally {
+			source.close();
+		}
+	}
+
+	@Test
+	public void testLongValueRange() throws IOException {
+		Assert.assertEquals(Long.MAX_VALUE, longValue("[9223372036854775807]"));
+		Assert.assertEquals(Long.MIN_VALUE, longValue("[-9223372036854775808]"));
+		Assert.assertEquals(-15L, longValue("[-1.5e1]"));
+		for (String json : new String[]{ "[9223372036854775808]", "[18446744073709551616]", "[-1e30]" }) {
+			try {
+				longValue(json);
+				Assert.fail("expected overflow: " + json);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testPrimitiveValues() throws IOException {
+		StringReader reader = new StringReader("[\"bob\",123,-1.5e1,true,false,null]");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(reader), true);
+		source.startArray();
+
+		Assert.assertEquals(JsonStreamSource.ValueType.STRING, source.peekValueType());
+		Assert.assertEquals("bob", source.stringValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NUMBER, source.peekValueType());
+		Assert.assertEquals(123L, source.longValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NUMBER, source.peekValueType());
+		Assert.assertEquals(-15.0, source.doubleValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.BOOLEAN, source.peekValueType());
+		Assert.assertTrue(source.booleanValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.BOOLEAN, source.peekValueType());
+		Assert.assertFalse(source.booleanValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NULL, source.peekValueType());
+		source.nullValue();
+
+		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
+		source.endArray();
+		source.close();
+	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		StringReader reader = new StringReader("[{\"alice\":[\"}]\\\"\",{\"bob\":{}}]},\"edgar\",{\"x\":[[1],2]},{\"david\":null}]");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(reader), true);
+		source.startArray();
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
+		source.skipValue();
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.START_OBJECT, source.peek());
+		source.startObject();
+		Assert.assertEquals("david", source.name());
+		source.skipValue();
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
+		source.endArray();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	/*
+	 * read chunked string value, verify chunks and answer chunk count
+	 */
+	int readChunks(JsonStreamSource source, String expected) throws IOException {
+		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
+		StringBuilder builder = new StringBuilder();
+		int count = 1;
+		while (source.peekValueType() == ValueType.STRING_CHUNK) {
+			String chunk = source.stringValue();
+			Assert.assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+			builder.append(chunk);
+			count++;
+		}
+		Assert.assertEquals(ValueType.STRING, source.peekValueType());
+		builder.append(source.stringValue());
+		Assert.assertEquals(expected, builder.toString());
+		return count;
+	}
+
+	void verifyChunks(JsonStreamSource source) throws IOException {
+		source.startObject();
+		Assert.assertEquals("alice", source.name());
+		Assert.assertTrue(readChunks(source, "0123456789\"ab\u00e9\ud83d\ude00xyz") > 3);
+		Assert.assertEquals("bobbobbobbob", source.name()); // names are joined
+		Assert.assertEquals(1, readChunks(source, "x"));
+		Assert.assertEquals("charlie", source.name());
+		source.skipValue(); // skip chunked string
+		Assert.assertEquals("david", source.name());
+		source.startArray();
+		Assert.assertEquals(2, readChunks(source, "abcdefg"));
+		Assert.assertEquals(42, source.longValue());
+		source.endArray();
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	static final String CHUNKED_INPUT =
+			"{\"alice\":\"0123456789\\\"ab\\u00e9\ud83d\ude00xyz\",\"bobbobbobbob\":\"x\",\"charlie\":\"0123456789\",\"david\":[\"abcdefg\",42]}";
+
+	@Test
+	public void testChunkedReader() throws IOException {
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		verifyChunks(factory.createJsonStreamSource(new StringReader(CHUNKED_INPUT), true, 4));
+		verifyChunks(factory.createJsonStreamSource(new StringReader(CHUNKED_INPUT), false, 4));
+	}
+
+	@Test
+	public void testChunkedInputStream() throws IOException {
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		verifyChunks(factory.createJsonStreamSource(new ByteArrayInputStream(CHUNKED_INPUT.getBytes("UTF-8")), true, 4));
+	}
 }
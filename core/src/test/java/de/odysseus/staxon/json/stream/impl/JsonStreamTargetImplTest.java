@@ -15,6 +15,7 @@
  */
 package de.odysseus.staxon.json.stream.impl;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 
@@ -160,4 +161,73 @@ public class JsonStreamTargetImplTest {
 		
 		Assert.assertEquals("[\"abc\",1234,true]", writer.toString());
 	}
+
+	@Test
+	public void testUtf8Output() throws IOException {
+		String[] values = { "", "abc", "\b\f\n\r\t\"\\\u001F", "\u00e4\u20ac\ud834\udd1e", "a\ud834b", "\udd1e" };
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl writerTarget = new JsonStreamTargetImpl(writer, true, " ", "\t", "\n");
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		JsonStreamTargetImpl streamTarget = new JsonStreamTargetImpl(stream, true, " ", "\t", "\n");
+		for (JsonStreamTargetImpl target : new JsonStreamTargetImpl[]{ writerTarget, streamTarget }) {
+			target.startObject();
+			target.name("\u00e4");
+			target.startArray();
+			for (String value : values) {
+				target.value(value);
+			}
+			target.endArray();
+			target.endObject();
+			target.close();
+		}
+		String expected = writer.toString().replace('\ud834', '?').replace('\udd1e', '?').replace("??", "\ud834\udd1e");
+		Assert.assertEquals(expected, new String(stream.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testUtf8OutputLarge() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			builder.append(i % 7 == 0 ? "\u20ac" : i % 11 == 0 ? "\n" : "x");
+		}
+		String value = builder.toString();
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl writerTarget = new JsonStreamTargetImpl(writer, true);
+		writerTarget.value(value);
+		writerTarget.close();
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		JsonStreamTargetImpl streamTarget = new JsonStreamTargetImpl(stream, true);
+		streamTarget.value(value);
+		streamTarget.close();
+		Assert.assertEquals(writer.toString(), new String(stream.toByteArray(), "UTF-8"));
+	}
+
+	@Test
+	public void testStringChunks() throws IOException {
+		StringWriter writer = new StringWriter();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(writer, true);
+		target.startObject();
+		target.name("alice");
+		target.startArray();
+		target.stringChunk("b\"");
+		target.stringChunk("o");
+		target.value("b");
+		target.stringChunk("charlie");
+		target.value("");
+		target.endArray();
+		target.endObject();
+		target.close();
+		Assert.assertEquals("{\"alice\":[\"b\\\"ob\",\"charlie\"]}", writer.toString());
+	}
+
+	@Test
+	public void testUtf8OutputStringChunks() throws IOException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		JsonStreamTargetImpl target = new JsonStreamTargetImpl(stream, true);
+		target.stringChunk("\u20ac\ud834"); // split surrogate pair
+		target.stringChunk("\udd1e\ud834");
+		target.value("\udd1e");
+		target.close();
+		Assert.assertEquals("\"\u20ac\ud834\udd1e\ud834\udd1e\"", new String(stream.toByteArray(), "UTF-8"));
+	}
 }
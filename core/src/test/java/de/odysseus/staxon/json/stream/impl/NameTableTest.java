@@ -0,0 +1,103 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class NameTableTest {
+	static CharSlice slice(String s) {
+		char[] chars = ("xx" + s + "yy").toCharArray();
+		return new CharSlice().set(chars, 2, s.length());
+	}
+
+	@Test
+	public void testLookup() {
+		NameTable table = new NameTable(16);
+		String alice = table.lookup(slice("alice"));
+		Assert.assertEquals("alice", alice);
+		Assert.assertSame(alice, table.lookup(slice("alice")));
+		Assert.assertSame("alice", alice); // interned
+		Assert.assertEquals("", table.lookup(slice("")));
+		Assert.assertEquals(2, table.size());
+	}
+
+	@Test
+	public void testCollision() {
+		NameTable table = new NameTable(16);
+		Assert.assertEquals("Aa".hashCode(), "BB".hashCode());
+		String aa = table.lookup(slice("Aa"));
+		String bb = table.lookup(slice("BB"));
+		Assert.assertEquals("Aa", aa);
+		Assert.assertEquals("BB", bb);
+		Assert.assertSame(aa, table.lookup(slice("Aa")));
+		Assert.assertSame(bb, table.lookup(slice("BB")));
+	}
+
+	@Test
+	public void testBounded() {
+		NameTable table = new NameTable(2);
+		table.lookup(slice("alice"));
+		table.lookup(slice("bob"));
+		Assert.assertEquals("edgar", table.lookup(slice("edgar")));
+		Assert.assertEquals(2, table.size());
+		Assert.assertSame(table.lookup(slice("bob")), table.lookup(slice("bob")));
+	}
+
+	@Test
+	public void testParts() {
+		NameTable table = new NameTable(1);
+		String name = table.lookup(slice("@p:alice"));
+		Assert.assertNull(table.getParts(name, 1, ':'));
+		String[] parts = { "p", "alice" };
+		table.putParts(name, 1, ':', parts);
+		Assert.assertSame(parts, table.getParts(name, 1, ':'));
+		Assert.assertSame(parts, table.getParts(table.lookup(slice("@p:alice")), 1, ':'));
+		Assert.assertNull(table.getParts(name, 0, ':'));
+		Assert.assertNull(table.getParts(name, 1, '.'));
+		Assert.assertNull(table.getParts(new String(name), 1, ':')); // not canonical
+
+		String bob = table.lookup(slice("bob")); // table full
+		table.putParts(bob, 0, ':', new String[]{ "", "bob" });
+		Assert.assertNull(table.getParts(bob, 0, ':'));
+	}
+
+	@Test
+	public void testSource() throws IOException {
+		NameTable table = new NameTable(16);
+		String input = "[{\"alice\":1,\"b\\u006fb\":2},{\"alice\":3,\"bob\":4}]";
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true, table);
+		source.startArray();
+		source.startObject();
+		String alice = source.name();
+		source.value();
+		String bob = source.name();
+		source.value();
+		source.endObject();
+		source.startObject();
+		Assert.assertSame(alice, source.name());
+		source.value();
+		Assert.assertSame(bob, source.name());
+		source.value();
+		source.endObject();
+		source.endArray();
+		source.close();
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.NonBlockingJsonStreamSource;
+
+public class NonBlockingJsonStreamSourceImplTest {
+	@Rule
+	public final ExpectedException expectedException = ExpectedException.none();
+
+	/*
+	 * Read tokens, feeding chunks of the given size whenever input is not available.
+	 */
+	static List<String> read(NonBlockingJsonStreamSource source, byte[] input, int chunkSize) throws IOException {
+		List<String> result = new ArrayList<String>();
+		int position = 0;
+		while (true) {
+			JsonStreamToken token = source.peek();
+			switch (token) {
+			case NOT_AVAILABLE:
+				if (position == input.length) {
+					source.endOfInput();
+				} else {
+					int length = Math.min(chunkSize, input.length - position);
+					source.feed(ByteBuffer.wrap(input, position, length));
+					position += length;
+				}
+				continue;
+			case NONE:
+				return result;
+			case START_OBJECT:
+				source.startObject();
+				break;
+			case END_OBJECT:
+				source.endObject();
+				break;
+			case START_ARRAY:
+				source.startArray();
+				break;
+			case END_ARRAY:
+				source.endArray();
+				break;
+			case NAME:
+				result.add("name:" + source.name());
+				continue;
+			case VALUE:
+				result.add("value:" + source.value().getData());
+				continue;
+			}
+			result.add(token.name());
+		}
+	}
+
+	static List<String> read(JsonStreamSource source) throws IOException {
+		List<String> result = new ArrayList<String>();
+		while (true) {
+			JsonStreamToken token = source.peek();
+			switch (token) {
+			case NONE:
+				return result;
+			case START_OBJECT:
+				source.startObject();
+				break;
+			case END_OBJECT:
+				source.endObject();
+				break;
+			case START_ARRAY:
+				source.startArray();
+				break;
+			case END_ARRAY:
+				source.endArray();
+				break;
+			case NAME:
+				result.add("name:" + source.name());
+				continue;
+			case VALUE:
+				result.add("value:" + source.value().getData());
+				continue;
+			default:
+				throw new IOException("Unexpected token: " + token);
+			}
+			result.add(token.name());
+		}
+	}
+
+	private void verify(String json) throws IOException {
+		List<String> expected = read(new JsonStreamSourceImpl(new Yylex(new StringReader(json)), true));
+		byte[] input = json.getBytes("UTF-8");
+		for (int chunkSize = 1; chunkSize <= input.length; chunkSize++) {
+			NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+			Assert.assertEquals("chunk size " + chunkSize, expected, read(source, input, chunkSize));
+			source.close();
+		}
+	}
+
+	@Test
+	public void testSupportsNonBlocking() throws IOException {
+		JsonStreamFactoryImpl factory = new JsonStreamFactoryImpl();
+		Assert.assertTrue(factory.supportsNonBlocking());
+		Assert.assertNotNull(factory.createNonBlockingJsonStreamSource());
+	}
+
+	@Test
+	public void testNotAvailable() throws IOException {
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap("{\"al".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.START_OBJECT, source.peek());
+		source.startObject();
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap("ice\"".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		Assert.assertEquals("alice", source.name());
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap(":12".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek()); // number may continue
+		source.feed(ByteBuffer.wrap("3}".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
+		Assert.assertEquals(123, source.longValue());
+		Assert.assertEquals(JsonStreamToken.END_OBJECT, source.peek());
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.endOfInput();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testChunks() throws IOException {
+		verify("{\"alice\":{\"bob\":[\"charlie\",true,null,-1.5e3],\"david\":\"\\u00e4\\\"\"},\"edgar\":12345678901234567890}");
+	}
+
+	@Test
+	public void testMultibyteChunks() throws IOException {
+		verify("{\"äöü\":\"€ 𝄞\"}");
+	}
+
+	@Test
+	public void testLongString() throws IOException {
+		StringBuilder builder = new StringBuilder("{\"alice\":[\"");
+		while (builder.length() < 200000) {
+			builder.append("bob \\u00e4\\\" \u20ac\ud834\udd1e ");
+		}
+		String json = builder.append("\",\"charlie\"]}").toString();
+		List<String> expected = read(new JsonStreamSourceImpl(new Yylex(new StringReader(json)), true));
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		Assert.assertEquals(expected, read(source, json.getBytes("UTF-8"), 3));
+		source.close();
+	}
+
+	@Test
+	public void testLocation() throws IOException {
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		source.feed(ByteBuffer.wrap("{\n \"a".getBytes("UTF-8")));
+		source.peek();
+		source.startObject();
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap("\":1}".getBytes("UTF-8")));
+		Assert.assertEquals("a", source.name());
+		Assert.assertEquals(2, source.getLineNumber());
+		Assert.assertEquals(4, source.getColumnNumber());
+		source.close();
+	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		source.feed(ByteBuffer.wrap("{\"a\":{\"b\":[\"}".getBytes("UTF-8")));
+		source.startObject();
+		Assert.assertEquals("a", source.name());
+		try {
+			source.skipValue();
+			Assert.fail("skip must not complete");
+		} catch (IOException e) {
+			Assert.assertEquals("Input not available", e.getMessage());
+		}
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap("\",{}]".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.NOT_AVAILABLE, source.peek());
+		source.feed(ByteBuffer.wrap("},\"c\":1}".getBytes("UTF-8")));
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		Assert.assertEquals("c", source.name());
+		source.endOfInput();
+		Assert.assertEquals(1, source.longValue());
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testSkipValueContinued() throws IOException {
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		source.feed(ByteBuffer.wrap("{\"a\":".getBytes("UTF-8")));
+		source.startObject();
+		Assert.assertEquals("a", source.name());
+		for (String input : new String[]{ "{\"b\":[\"}", "\",{}]", "" }) {
+			source.feed(ByteBuffer.wrap(input.getBytes("UTF-8")));
+			try {
+				source.skipValue();
+				Assert.fail("skip must not complete");
+			} catch (IOException e) {
+				Assert.assertEquals("Input not available", e.getMessage());
+			}
+		}
+		source.feed(ByteBuffer.wrap("},\"c\":1}".getBytes("UTF-8")));
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.NAME, source.peek());
+		Assert.assertEquals("c", source.name());
+		source.endOfInput();
+		Assert.assertEquals(1, source.longValue());
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	@Test
+	public void testPrematureEOF() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Premature EOF");
+		NonBlockingJsonStreamSource source = new NonBlockingJsonStreamSourceImpl(new Utf8Scanner(), null);
+		source.feed(ByteBuffer.wrap("{\"a\":1".getBytes("UTF-8")));
+		source.endOfInput();
+		source.startObject();
+		source.name();
+		source.value();
+		source.peek();
+	}
+}
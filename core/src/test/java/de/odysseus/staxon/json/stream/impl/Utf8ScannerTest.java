@@ -0,0 +1,310 @@
+/*
+ * Copyright 2011, 2012 Odysseus Software GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.odysseus.staxon.json.stream.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import de.odysseus.staxon.json.stream.JsonStreamSource;
+import de.odysseus.staxon.json.stream.JsonStreamToken;
+import de.odysseus.staxon.json.stream.impl.JsonStreamSourceImpl.Scanner.Symbol;
+import de.odysseus.staxon.json.stream.util.StreamSourceDelegate;
+
+public class Utf8ScannerTest {
+	@Rule
+	public final ExpectedException expectedException = ExpectedException.none();
+
+	static Utf8Scanner scanner(String input, int bufferSize) throws IOException {
+		return new Utf8Scanner(new ByteArrayInputStream(input.getBytes("UTF-8")), bufferSize);
+	}
+
+	static JsonStreamSourceImpl source(String input, int bufferSize) throws IOException {
+		return new JsonStreamSourceImpl(scanner(input, bufferSize), true);
+	}
+
+	String copy(String input, int bufferSize) throws IOException {
+		StringWriter result = new StringWriter();
+		StreamSourceDelegate source = new StreamSourceDelegate(source(input, bufferSize));
+		try {
+			source.copy(new JsonStreamTargetImpl(result, true));
+		} finally {
+			source.close();
+		}
+		return result.toString();
+	}
+
+	@Test
+	public void testSymbols() throws IOException {
+		Utf8Scanner scanner = scanner(" { } [ ] , : \"\" true false null -1.5e+3 ", 3);
+		Assert.assertEquals(Symbol.START_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_OBJECT, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.START_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.END_ARRAY, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.COMMA, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.COLON, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.STRING, scanner.nextSymbol());
+		Assert.assertEquals("", scanner.getText());
+		Assert.assertEquals(Symbol.TRUE, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.FALSE, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.NULL, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.NUMBER, scanner.nextSymbol());
+		Assert.assertEquals("-1.5e+3", scanner.getText());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		Assert.assertEquals(Symbol.EOF, scanner.nextSymbol());
+		scanner.close();
+	}
+
+	@Test
+	public void testString() throws IOException {
+		String input = "[\"\",\"abc\",\"\\b\\f\\n\\r\\t\",\"\\\"\",\"\\\\\",\"\\/\",\"\\u001F\",\"\\u20ac\"]";
+		for (int bufferSize = 1; bufferSize < 8; bufferSize++) {
+			JsonStreamSourceImpl source = source(input, bufferSize);
+			source.startArray();
+			Assert.assertEquals("", source.value().text);
+			Assert.assertEquals("abc", source.value().text);
+			Assert.assertEquals("\b\f\n\r\t", source.value().text);
+			Assert.assertEquals("\"", source.value().text);
+			Assert.assertEquals("\\", source.value().text);
+			Assert.assertEquals("/", source.value().text);
+			Assert.assertEquals("\u001F", source.value().text);
+			Assert.assertEquals("\u20AC", source.value().text);
+			source.endArray();
+			Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+			source.close();
+		}
+	}
+
+	@Test
+	public void testMultiByte() throws IOException {
+		String value = "a\u00e9b\u20acc\ud834\udd1ed";
+		for (int bufferSize = 1; bufferSize < 8; bufferSize++) {
+			JsonStreamSourceImpl source = source("{\"\u00e4\":\"" + value + "\"}", bufferSize);
+			source.startObject();
+			Assert.assertEquals("\u00e4", source.name());
+			Assert.assertEquals(value, source.value().text);
+			source.endObject();
+			source.close();
+		}
+	}
+
+	@Test
+	public void testLongString() throws IOException {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			builder.append("0123456789\u00e9");
+		}
+		JsonStreamSourceImpl source = source("\"" + builder + "\"", 100);
+		Assert.assertEquals(builder.toString(), source.value().text);
+		source.close();
+	}
+
+	@Test
+	public void testNumberValues() throws IOException {
+		JsonStreamSourceImpl source = source("[0,-0,123,-12e3,12E+3,12.3,1.2e-3]", 2);
+		source.startArray();
+		Assert.assertEquals("0", source.value().text);
+		Assert.assertEquals("-0", source.value().text);
+		Assert.assertEquals("123", source.value().text);
+		Assert.assertEquals("-12e3", source.value().text);
+		Assert.assertEquals("12E+3", source.value().text);
+		Assert.assertEquals("12.3", source.value().text);
+		Assert.assertEquals("1.2e-3", source.value().text);
+		source.endArray();
+		source.close();
+	}
+
+	@Test
+	public void testByteOrderMark() throws IOException {
+		Assert.assertEquals("{\"alice\":\"bob\"}", copy("\ufeff{\"alice\":\"bob\"}", 1));
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+		String input = "{\"alice\":{\"bob\":[\"edgar\",true,null,1.5],\"charlie\":{}}}";
+		Assert.assertEquals(input, copy(input, 4));
+	}
+
+	@Test
+	public void testLocation() throws IOException {
+		String input = "{\n\t\"alice\" : {\n\t\t\"bob\" : [ \"charlie\" ],\n\t\t\"edgar\" : \"david\"\n\t}\n}";
+		JsonStreamSourceImpl source = source(input, 5);
+		JsonStreamSourceImpl expected = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true);
+		while (expected.peek() != JsonStreamToken.NONE) {
+			Assert.assertEquals(expected.peek(), source.peek());
+			switch (expected.peek()) {
+			case START_OBJECT:
+				expected.startObject();
+				source.startObject();
+				break;
+			case END_OBJECT:
+				expected.endObject();
+				source.endObject();
+				break;
+			case START_ARRAY:
+				expected.startArray();
+				source.startArray();
+				break;
+			case END_ARRAY:
+				expected.endArray();
+				source.endArray();
+				break;
+			case NAME:
+				Assert.assertEquals(expected.name(), source.name());
+				break;
+			case VALUE:
+				Assert.assertEquals(expected.value().text, source.value().text);
+				break;
+			default:
+				Assert.fail();
+			}
+			Assert.assertEquals(expected.getLineNumber(), source.getLineNumber());
+			Assert.assertEquals(expected.getColumnNumber(), source.getColumnNumber());
+			Assert.assertEquals(expected.getCharacterOffset(), source.getCharacterOffset());
+		}
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		expected.close();
+		source.close();
+	}
+
+	@Test
+	public void testLiteralValues() throws IOException {
+		JsonStreamSourceImpl source = source("[true,false,null]", 1);
+		source.startArray();
+		Assert.assertSame(JsonStreamSource.TRUE, source.value());
+		Assert.assertSame(JsonStreamSource.FALSE, source.value());
+		Assert.assertSame(JsonStreamSource.NULL, source.value());
+		source.endArray();
+		source.close();
+	}
+
+	@Test
+	public void testInvalid_IllegalCharacter() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal character: <x>");
+		copy("{\"alice\":x}", 16);
+	}
+
+	@Test
+	public void testInvalid_IllegalLiteral() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal character: <t>");
+		copy("[trux]", 16);
+	}
+
+	@Test
+	public void testInvalid_IllegalEscape() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal character: <\\>");
+		copy("[\"\\x\"]", 16);
+	}
+
+	@Test
+	public void testInvalid_IllegalSequence() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Illegal UTF-8 sequence");
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(new Utf8Scanner(new ByteArrayInputStream(new byte[]{ '"', (byte) 0xC3, '"' })), true);
+		source.value();
+	}
+
+	@Test
+	public void testInvalid_UnterminatedString() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Unterminated string");
+		copy("[\"alice", 16);
+	}
+
+	@Test
+	public void testInvalid_PrematureEOF() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Premature EOF");
+		copy("[\"edgar\",\"david\"", 16);
+	}
+
+	@Test
+	public void testNoLocation() throws IOException {
+		String input = "{\n\t\"alice\" : {\r\n\t\t\"bob\" : [ \"charlie\" ],\n\t\t\"edgar\" : \"david\"\n\t}\n}";
+		Utf8Scanner scanner = new Utf8Scanner(new ByteArrayInputStream(input.getBytes("UTF-8")), 5, 0, false);
+		JsonStreamSourceImpl source = new JsonStreamSourceImpl(scanner, true);
+		JsonStreamSourceImpl expected = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true);
+		while (expected.peek() != JsonStreamToken.NONE) {
+			Assert.assertEquals(expected.peek(), source.peek());
+			Assert.assertEquals(expected.getCharacterOffset(), source.getCharacterOffset());
+			Assert.assertEquals(-1, source.getLineNumber());
+			Assert.assertEquals(-1, source.getColumnNumber());
+			switch (expected.peek()) {
+			case START_OBJECT:
+				expected.startObject();
+				source.startObject();
+				break;
+			case END_OBJECT:
+				expected.endObject();
+				source.endObject();
+				break;
+			case NAME:
+				Assert.assertEquals(expected.name(), source.name());
+				break;
+			default:
+				expected.skipValue();
+				source.skipValue();
+			}
+		}
+		source.close();
+		expected.close();
+	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		String input = "[\n{\"\u00e4\":[\"}]\\\"\u20ac\ud834\udd1e\",{\"bob\":{}}]},\r\n\t\"edgar\",{\"x\":[[1],2]},\n{\"david\":null}]";
+		for (int bufferSize = 1; bufferSize < 8; bufferSize++) {
+			JsonStreamSourceImpl source = source(input, bufferSize);
+			JsonStreamSourceImpl expected = new JsonStreamSourceImpl(new Yylex(new StringReader(input)), true);
+			source.startArray();
+			expected.startArray();
+			for (int i = 0; i < 3; i++) {
+				source.skipValue();
+				expected.skipValue();
+				Assert.assertEquals(expected.getLineNumber(), source.getLineNumber());
+				Assert.assertEquals(expected.getColumnNumber(), source.getColumnNumber());
+				Assert.assertEquals(expected.getCharacterOffset(), source.getCharacterOffset());
+			}
+			source.startObject();
+			Assert.assertEquals("david", source.name());
+			source.skipValue();
+			source.endObject();
+			source.endArray();
+			Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+			source.close();
+			expected.close();
+		}
+	}
+
+	@Test
+	public void testSkipValue_PrematureEOF() throws IOException {
+		expectedException.expect(IOException.class);
+		expectedException.expectMessage("Premature EOF");
+		JsonStreamSourceImpl source = source("[{\"alice\":[\"]\"]", 4);
+		source.startArray();
+		source.skipValue();
+	}
+}
@@ -15,9 +15,15 @@
  */
 package de.odysseus.staxon.json.stream.util;
 
+import java.io.File;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
 
+import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
 import org.junit.Assert;
@@ -181,4 +187,160 @@ public class AutoArrayTargetTest {
 		writer.close();
 		Assert.assertEquals("{\"alice\":null}", result.toString());
 	}
+
+	private JsonXMLStreamWriter createXmlStreamWriter(StringWriter result, AutoArrayPaths paths) throws IOException {
+		return new JsonXMLStreamWriter(new AutoArrayTarget(new JsonStreamFactoryImpl().createJsonStreamTarget(result, false), paths), false, true, ':', true);
+	}
+
+	private void writeElement(XMLStreamWriter writer, String name, String text) throws XMLStreamException {
+		writer.writeStartElement(name);
+		writer.writeCharacters(text);
+		writer.writeEndElement();
+	}
+
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;bob&gt;david&lt;/bob&gt;&lt;/alice&gt;</code> learned,
+	 * then <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;edgar&gt;david&lt;/edgar&gt;&lt;bob&gt;felix&lt;/bob&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testLearnedPaths() throws Exception {
+		AutoArrayPaths paths = new AutoArrayPaths(1);
+
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = createXmlStreamWriter(result, paths);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writeElement(writer, "bob", "charlie");
+		writeElement(writer, "bob", "david");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\",\"david\"]}}", result.toString());
+		Assert.assertFalse(paths.isLearning());
+		Assert.assertEquals(Boolean.TRUE, paths.isArray("alice/bob"));
+		Assert.assertEquals(Boolean.FALSE, paths.isArray("alice"));
+		Assert.assertNull(paths.isArray("alice/edgar"));
+
+		result = new StringWriter();
+		writer = createXmlStreamWriter(result, paths);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writeElement(writer, "bob", "charlie");
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"", result.toString()); // known paths are streamed
+		writeElement(writer, "edgar", "david");
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"]", result.toString()); // unknown path is buffered
+		writeElement(writer, "bob", "felix");
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"],\"edgar\":\"david\",\"bob\":[\"felix\"", result.toString());
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"],\"edgar\":\"david\",\"bob\":[\"felix\"]}}", result.toString());
+	}
+
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;edgar&gt;david&lt;/edgar&gt;&lt;/alice&gt;</code>
+	 */
+	@Test
+	public void testSuppliedPaths() throws Exception {
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = createXmlStreamWriter(result, new AutoArrayPaths(Arrays.asList("alice/bob")));
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writeElement(writer, "bob", "charlie");
+		writeElement(writer, "edgar", "david");
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"],\"edgar\":\"david\"", result.toString());
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":{\"bob\":[\"charlie\"],\"edgar\":\"david\"}}", result.toString());
+	}
+
+	/**
+	 * <code>&lt;alice&gt;&lt;bob&gt;charlie&lt;/bob&gt;&lt;bob&gt;david&lt;/bob&gt;&lt;/alice&gt;</code>
+	 */
+	@Test(expected = XMLStreamException.class)
+	public void testSuppliedPathsRepeatedField() throws Exception {
+		XMLStreamWriter writer = createXmlStreamWriter(new StringWriter(), new AutoArrayPaths(Collections.<String>emptySet()));
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writeElement(writer, "bob", "charlie");
+		writeElement(writer, "bob", "david");
+	}
+
+	private int countSpillFiles() {
+		String[] files = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith("staxon") && name.endsWith(".events");
+			}
+		});
+		return files == null ? 0 : files.length;
+	}
+
+	private String writeSpillDocument(int spillThreshold, String longText) throws Exception {
+		StringWriter result = new StringWriter();
+		JsonXMLStreamWriter writer = new JsonXMLStreamWriter(new AutoArrayTarget(new JsonStreamFactoryImpl().createJsonStreamTarget(result, false), null, spillThreshold), false, true, ':', true);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		for (int i = 0; i < 3; i++) {
+			writer.writeStartElement("bob");
+			writer.writeAttribute("id", String.valueOf(i));
+			writeElement(writer, "charlie", "david");
+			writeElement(writer, "charlie", longText);
+			writeElement(writer, "charlie", "");
+			writer.writeStartElement("number");
+			writer.writeNumber(i % 2 == 0 ? Integer.valueOf(i) : new BigDecimal("1.5"));
+			writer.writeEndElement();
+			writer.writeStartElement("boolean");
+			writer.writeBoolean(Boolean.TRUE);
+			writer.writeEndElement();
+			writer.writeEmptyElement("null");
+			writer.writeEndElement();
+		}
+		writeElement(writer, "edgar", "felix");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testSpill() throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 40000; i++) {
+			builder.append(i % 100 == 0 ? '\u20ac' : 'x');
+		}
+		int spillFiles = countSpillFiles();
+		String expected = writeSpillDocument(0, builder.toString());
+		Assert.assertTrue(expected.startsWith("{\"alice\":{\"bob\":[{\"@id\":\"0\",\"charlie\":[\"david\",\""));
+		Assert.assertEquals(expected, writeSpillDocument(1, builder.toString()));
+		Assert.assertEquals(expected, writeSpillDocument(1000, builder.toString()));
+		Assert.assertEquals(spillFiles, countSpillFiles());
+	}
+
+	private String writeSpillEmpty(int spillThreshold) throws Exception {
+		StringWriter result = new StringWriter();
+		AutoArrayTarget target = new AutoArrayTarget(new JsonStreamFactoryImpl().createJsonStreamTarget(result, false), null, spillThreshold);
+		target.startObject();
+		for (int i = 0; i < 2; i++) {
+			target.name("");
+			target.stringChunk("");
+			target.value("");
+		}
+		target.name("x");
+		target.startObject();
+		target.name("");
+		target.value("");
+		target.endObject();
+		target.endObject();
+		target.close();
+		return result.toString();
+	}
+
+	@Test
+	public void testSpillEmpty() throws Exception {
+		String expected = writeSpillEmpty(0);
+		Assert.assertEquals("{\"\":[\"\",\"\"],\"x\":{\"\":\"\"}}", expected);
+		Assert.assertEquals(expected, writeSpillEmpty(1));
+	}
 }
@@ -90,4 +90,18 @@ public class AutoPrimitiveTargetTest {
 		writer.close();
 		Assert.assertEquals("{\"alice\":\"493188617199e1170000000000000000\"}", result.toString());
 	}
+
+	@Test
+	public void testNumberChunks() throws Exception {
+		StringWriter result = new StringWriter();
+		XMLStreamWriter writer = createXmlStreamWriter(result);
+		writer.writeStartDocument();
+		writer.writeStartElement("alice");
+		writer.writeCharacters("12");
+		writer.writeCharacters("3");
+		writer.writeEndElement();
+		writer.writeEndDocument();
+		writer.close();
+		Assert.assertEquals("{\"alice\":123}", result.toString());
+	}
 }
@@ -18,6 +18,7 @@ package de.odysseus.staxon.json.stream.gson;
 import java.io.IOException;
 
 import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
@@ -119,6 +120,93 @@ class GsonStreamSource implements JsonStreamSource {
 		}
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		if (peek() != JsonStreamToken.VALUE) {
+			throw new IOException("Not a value token: " + peek());
+		}
+		switch (reader.peek()) {
+		case STRING:
+			return ValueType.STRING;
+		case NUMBER:
+			return ValueType.NUMBER;
+		case BOOLEAN:
+			return ValueType.BOOLEAN;
+		default:
+			return ValueType.NULL;
+		}
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		consume(JsonStreamToken.VALUE);
+		switch (reader.peek()) {
+		case BOOLEAN:
+			return reader.nextBoolean() ? "true" : "false";
+		case NULL:
+			reader.nextNull();
+			return null;
+		default:
+			return reader.nextString();
+		}
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		consume(JsonStreamToken.VALUE);
+		if (reader.peek() != JsonToken.NUMBER) {
+			throw new IOException("Not a number: " + reader.peek());
+		}
+		String text = reader.nextString(); // JsonReader.nextLong() saturates near the range limits
+		boolean integer = text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0;
+		try {
+			return new Value(text, integer).longValue();
+		} catch (NumberFormatException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		consume(JsonStreamToken.VALUE);
+		if (reader.peek() != JsonToken.NUMBER) {
+			throw new IOException("Not a number: " + reader.peek());
+		}
+		return reader.nextDouble();
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		consume(JsonStreamToken.VALUE);
+		if (reader.peek() != JsonToken.BOOLEAN) {
+			throw new IOException("Not a boolean: " + reader.peek());
+		}
+		return reader.nextBoolean();
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		consume(JsonStreamToken.VALUE);
+		if (reader.peek() != JsonToken.NULL) {
+			throw new IOException("Not null: " + reader.peek());
+		}
+		reader.nextNull();
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case VALUE:
+		case START_OBJECT:
+		case START_ARRAY:
+			consume(peek());
+			reader.skipValue();
+			break;
+		default:
+			throw new IOException("Not a value token: " + peek());
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		reader.close();
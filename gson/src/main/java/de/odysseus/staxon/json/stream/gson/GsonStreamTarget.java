@@ -23,6 +23,7 @@ import de.odysseus.staxon.json.stream.JsonStreamTarget;
 
 class GsonStreamTarget implements JsonStreamTarget {
 	private final JsonWriter writer;
+	private StringBuilder chunks;
 	
 	GsonStreamTarget(JsonWriter writer) {
 		this.writer = writer;
@@ -53,8 +54,23 @@ class GsonStreamTarget implements JsonStreamTarget {
 		writer.beginObject();
 	}
 
+	/**
+	 * Collect chunks, the string is written on completion.
+	 */
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		if (chunks == null) {
+			chunks = new StringBuilder();
+		}
+		chunks.append(chunk);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
+		if (chunks != null) {
+			value = chunks.append(value).toString();
+			chunks = null;
+		}
 		if (value == null) {
 			writer.nullValue();
 		} else if (value instanceof String) {
@@ -15,6 +15,8 @@
  */
 package de.odysseus.staxon.json.stream.gson;
 
+import java.io.IOException;
+
 import junit.framework.Assert;
 
 import org.junit.Test;
@@ -26,4 +28,16 @@ public class GsonStreamFactoryTest {
 	public void test() {
 		Assert.assertTrue(JsonStreamFactory.newFactory() instanceof GsonStreamFactory);
 	}
+
+	@Test
+	public void testNonBlockingNotSupported() {
+		JsonStreamFactory factory = new GsonStreamFactory();
+		Assert.assertFalse(factory.supportsNonBlocking());
+		try {
+			factory.createNonBlockingJsonStreamSource();
+			Assert.fail("expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+	}
 }
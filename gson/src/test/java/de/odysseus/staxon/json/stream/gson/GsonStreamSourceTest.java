@@ -17,6 +17,10 @@ package de.odysseus.staxon.json.stream.gson;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
 
 import junit.framework.Assert;
 
@@ -24,6 +28,8 @@ import org.junit.Test;
 
 import com.google.gson.stream.JsonReader;
 
+import de.odysseus.staxon.json.JsonXMLInputFactory;
+import de.odysseus.staxon.json.JsonXMLStreamReader;
 import de.odysseus.staxon.json.stream.JsonStreamSource;
 import de.odysseus.staxon.json.stream.JsonStreamToken;
 
@@ -226,17 +232,17 @@ public class GsonStreamSourceTest {
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("true", value.text);
-		Assert.assertEquals(Boolean.TRUE, value.data);
+		Assert.assertEquals(Boolean.TRUE, value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("false", value.text);
-		Assert.assertEquals(Boolean.FALSE, value.data);
+		Assert.assertEquals(Boolean.FALSE, value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertNull(value.text);
-		Assert.assertNull(value.data);
+		Assert.assertNull(value.getData());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -257,32 +263,32 @@ public class GsonStreamSourceTest {
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("123", value.text);
-		Assert.assertEquals(new Long("123"), value.data);
+		Assert.assertEquals(new Long("123"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12e3", value.text);
-		Assert.assertEquals(new Double("12e3"), value.data);
+		Assert.assertEquals(new Double("12e3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12E3", value.text);
-		Assert.assertEquals(new Double("12E3"), value.data);
+		Assert.assertEquals(new Double("12E3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("12.3", value.text);
-		Assert.assertEquals(new Double("12.3"), value.data);
+		Assert.assertEquals(new Double("12.3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2e3", value.text);
-		Assert.assertEquals(new Double("1.2e3"), value.data);
+		Assert.assertEquals(new Double("1.2e3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
 		value = source.value();
 		Assert.assertEquals("1.2E3", value.text);
-		Assert.assertEquals(new Double("1.2E3"), value.data);
+		Assert.assertEquals(new Double("1.2E3"), value.getData());
 
 		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
 		source.endArray();
@@ -323,4 +329,101 @@ public class GsonStreamSourceTest {
 		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
 		source.close();
 	}
+
+	private long longValue(String json) throws IOException {
+		GsonStreamSource source = new GsonStreamSource(new JsonReader(new StringReader(json)));
+		source.startArray();
+		try {
+			return source.longValue();
+		} finally {
+			source.close();
+		}
+	}
+
+	@Test
+	public void testLongValueRange() throws IOException {
+		Assert.assertEquals(Long.MAX_VALUE, longValue("[9223372036854775807]"));
+		Assert.assertEquals(Long.MIN_VALUE, longValue("[-9223372036854775808]"));
+		Assert.assertEquals(-15L, longValue("[-1.5e1]"));
+		for (String json : new String[]{ "[9223372036854775808]", "[18446744073709551616]", "[-1e30]" }) {
+			try {
+				longValue(json);
+				Assert.fail("expected overflow: " + json);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testPrimitiveValues() throws IOException {
+		StringReader reader = new StringReader("[\"bob\",123,-1.5e1,true,false,null]");
+		GsonStreamSource source = new GsonStreamSource(new JsonReader(reader));
+		source.startArray();
+
+		Assert.assertEquals(JsonStreamSource.ValueType.STRING, source.peekValueType());
+		Assert.assertEquals("bob", source.stringValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NUMBER, source.peekValueType());
+		Assert.assertEquals(123L, source.longValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NUMBER, source.peekValueType());
+		Assert.assertEquals(-15.0, source.doubleValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.BOOLEAN, source.peekValueType());
+		Assert.assertTrue(source.booleanValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.BOOLEAN, source.peekValueType());
+		Assert.assertFalse(source.booleanValue());
+
+		Assert.assertEquals(JsonStreamSource.ValueType.NULL, source.peekValueType());
+		source.nullValue();
+
+		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
+		source.endArray();
+		source.close();
+	}
+
+	@Test
+	public void testSkipValue() throws IOException {
+		StringReader reader = new StringReader("[{\"alice\":[\"}]\\\"\",{\"bob\":{}}]},\"edgar\",{\"x\":[[1],2]},{\"david\":null}]");
+		GsonStreamSource source = new GsonStreamSource(new JsonReader(reader));
+		source.startArray();
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.VALUE, source.peek());
+		source.skipValue();
+		source.skipValue();
+		Assert.assertEquals(JsonStreamToken.START_OBJECT, source.peek());
+		source.startObject();
+		Assert.assertEquals("david", source.name());
+		source.skipValue();
+		source.endObject();
+		Assert.assertEquals(JsonStreamToken.END_ARRAY, source.peek());
+		source.endArray();
+		Assert.assertEquals(JsonStreamToken.NONE, source.peek());
+		source.close();
+	}
+
+	/*
+	 * numbers reported by a reader on top of this backend
+	 */
+	private List<Number> readerNumbers(String json) throws Exception {
+		JsonXMLStreamReader reader = new JsonXMLInputFactory(new GsonStreamFactory()).createXMLStreamReader(new StringReader(json));
+		List<Number> result = new ArrayList<Number>();
+		while (reader.hasNext()) {
+			if (reader.next() == XMLStreamConstants.CHARACTERS && reader.hasNumber()) {
+				result.add(reader.getNumber());
+			}
+		}
+		reader.close();
+		return result;
+	}
+
+	@Test
+	public void testReaderNumberTypes() throws Exception {
+		List<Number> numbers = readerNumbers("{\"alice\":{\"bob\":123,\"charlie\":-1.5}}");
+		Assert.assertEquals(2, numbers.size());
+		Assert.assertEquals(Long.valueOf(123), numbers.get(0));
+		Assert.assertEquals(Double.valueOf(-1.5), numbers.get(1));
+	}
 }
@@ -133,6 +133,86 @@ class JacksonStreamSource implements JsonStreamSource {
 		}
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		expect(JsonStreamToken.VALUE);
+		switch (parser.getCurrentToken()) {
+		case VALUE_STRING:
+			return ValueType.STRING;
+		case VALUE_TRUE:
+		case VALUE_FALSE:
+			return ValueType.BOOLEAN;
+		case VALUE_NUMBER_FLOAT:
+		case VALUE_NUMBER_INT:
+			return ValueType.NUMBER;
+		default:
+			return ValueType.NULL;
+		}
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		expect(JsonStreamToken.VALUE).consume();
+		return parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+	}
+
+	private void number() throws IOException {
+		expect(JsonStreamToken.VALUE).consume();
+		if (!parser.getCurrentToken().isNumeric()) {
+			throw new IOException("Not a number: " + parser.getCurrentToken());
+		}
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		number();
+		return parser.getLongValue();
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		number();
+		return parser.getDoubleValue();
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		expect(JsonStreamToken.VALUE).consume();
+		switch (parser.getCurrentToken()) {
+		case VALUE_TRUE:
+			return true;
+		case VALUE_FALSE:
+			return false;
+		default:
+			throw new IOException("Not a boolean: " + parser.getCurrentToken());
+		}
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		expect(JsonStreamToken.VALUE).consume();
+		if (parser.getCurrentToken() != JsonToken.VALUE_NULL) {
+			throw new IOException("Not null: " + parser.getCurrentToken());
+		}
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		switch (peek()) {
+		case VALUE:
+			consume();
+			break;
+		case START_OBJECT:
+		case START_ARRAY:
+			consume();
+			parser.skipChildren();
+			location = parser.getCurrentLocation();
+			break;
+		default:
+			throw new IOException("Not a value token: " + peek());
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		parser.close();
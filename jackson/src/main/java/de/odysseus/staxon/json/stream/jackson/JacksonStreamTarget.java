@@ -25,6 +25,7 @@ import de.odysseus.staxon.json.stream.JsonStreamTarget;
 
 class JacksonStreamTarget implements JsonStreamTarget {
 	private final JsonGenerator generator;
+	private StringBuilder chunks;
 	
 	JacksonStreamTarget(JsonGenerator generator) {
 		this.generator = generator;
@@ -55,8 +56,23 @@ class JacksonStreamTarget implements JsonStreamTarget {
 		generator.writeStartObject();
 	}
 
+	/**
+	 * Collect chunks, the string is written on completion.
+	 */
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		if (chunks == null) {
+			chunks = new StringBuilder();
+		}
+		chunks.append(chunk);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
+		if (chunks != null) {
+			value = chunks.append(value).toString();
+			chunks = null;
+		}
 		if (value == null) {
 			generator.writeNull();
 		} else if (value instanceof String) {
@@ -28,6 +28,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.TreeSet;
@@ -45,6 +46,7 @@ import javax.xml.bind.JAXBException;
 import javax.xml.stream.XMLStreamException;
 
 import de.odysseus.staxon.json.jaxb.JsonXML;
+import de.odysseus.staxon.json.jaxb.JsonXMLArrayIterator;
 
 @Provider
 @Consumes(MediaType.APPLICATION_JSON)
@@ -69,7 +71,7 @@ public class JsonXMLArrayProvider extends AbstractJsonXMLProvider {
 	}
 
 	protected Class<?> getComponentType(Class<?> type, Type genericType) {
-		if (Collection.class.isAssignableFrom(type)) {
+		if (Collection.class.isAssignableFrom(type) || type == Iterable.class) {
 			if (genericType instanceof ParameterizedType) {
 				return getRawType(((ParameterizedType) genericType).getActualTypeArguments()[0]);
 			} else if (genericType instanceof GenericArrayType) {
@@ -118,6 +120,23 @@ public class JsonXMLArrayProvider extends AbstractJsonXMLProvider {
 		return result;
 	}
 
+	/**
+	 * Wrap iterator into a single-use iterable.
+	 */
+	protected Iterable<Object> toIterable(final Iterator<Object> iterator) {
+		return new Iterable<Object>() {
+			private boolean iterated = false;
+			@Override
+			public Iterator<Object> iterator() {
+				if (iterated) {
+					throw new IllegalStateException("Iterable can only be iterated once");
+				}
+				iterated = true;
+				return iterator;
+			}
+		};
+	}
+
 	@Override
 	protected boolean isReadWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
 		if (!isSupported(mediaType)) {
@@ -137,6 +156,17 @@ public class JsonXMLArrayProvider extends AbstractJsonXMLProvider {
 			Reader stream) throws IOException, WebApplicationException {
 		Class<?> componentType = getComponentType(type, genericType);
 		JsonXML config = getJsonXML(componentType, annotations);	
+		if (type == Iterable.class) { // read lazily
+			JsonXMLArrayIterator<Object> iterator;
+			try {
+				iterator = streamArray(componentType, config, getContext(componentType, mediaType), stream);
+			} catch (XMLStreamException e) {
+				throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+			} catch (JAXBException e) {
+				throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
+			}
+			return iterator == null ? null : toIterable(iterator);
+		}
 		List<?> list;
 		try {
 			list = readArray(componentType, config, getContext(componentType, mediaType), stream);
@@ -170,16 +200,16 @@ public class JsonXMLArrayProvider extends AbstractJsonXMLProvider {
 			Object entry) throws IOException, WebApplicationException {
 		Class<?> componentType = getComponentType(type, genericType);
 		JsonXML config = getJsonXML(componentType, annotations);
-		Collection<?> collection;
+		Iterable<?> values;
 		if (entry == null) {
-			collection = null;
+			values = null;
 		} else if (type.isArray()) {
-			collection = Arrays.asList((Object[]) entry);
+			values = Arrays.asList((Object[]) entry);
 		} else {
-			collection = (Collection<?>) entry;
+			values = (Iterable<?>) entry;
 		}
 		try {
-			writeArray(componentType, config, getContext(componentType, mediaType), stream, collection);
+			writeArray(componentType, config, getContext(componentType, mediaType), stream, values);
 		} catch (XMLStreamException e) {
 			throw new WebApplicationException(e, Status.INTERNAL_SERVER_ERROR);
 		} catch (JAXBException e) {
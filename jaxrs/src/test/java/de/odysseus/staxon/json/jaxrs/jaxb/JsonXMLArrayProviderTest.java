@@ -20,6 +20,7 @@ import java.io.StringWriter;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import javax.ws.rs.core.MediaType;
@@ -59,7 +60,7 @@ public class JsonXMLArrayProviderTest {
 		type = getClass().getDeclaredField("objectList").getGenericType();
 		Assert.assertFalse(provider.isReadWriteable(List.class, type, annotations, MediaType.APPLICATION_JSON_TYPE));
 		type = getClass().getDeclaredField("sampleTypeIterable").getGenericType();
-		Assert.assertFalse(provider.isReadWriteable(Iterable.class, type, annotations, MediaType.APPLICATION_JSON_TYPE));
+		Assert.assertTrue(provider.isReadWriteable(Iterable.class, type, annotations, MediaType.APPLICATION_JSON_TYPE));
 		type = getClass().getDeclaredField("sampleTypeList").getGenericType();
 		Assert.assertFalse(provider.isReadWriteable(List.class, type, new Annotation[0], MediaType.APPLICATION_JSON_TYPE));
 		Assert.assertFalse(provider.isReadWriteable(List.class, type, annotations, MediaType.APPLICATION_XML_TYPE));
@@ -129,6 +130,23 @@ public class JsonXMLArrayProviderTest {
 		Assert.assertEquals("world", list.get(1).element);
 	}
 
+	@Test
+	public void testReadSampleTypeIterable() throws Exception {
+		JsonXMLArrayProvider provider = new JsonXMLArrayProvider(null);
+		Annotation[] annotations = new Annotation[]{JsonXMLDefault.class.getAnnotation(JsonXML.class)};
+		Type type = getClass().getDeclaredField("sampleTypeIterable").getGenericType();
+		String json = "[{\"sampleType\":{\"element\":\"hello\"}},{\"sampleType\":{\"element\":\"world\"}}]";
+
+		@SuppressWarnings("unchecked")
+		Iterable<SampleType> iterable = (Iterable<SampleType>)provider.read(Iterable.class,
+				type, annotations, MediaType.APPLICATION_JSON_TYPE, null, new StringReader(json));
+
+		Iterator<SampleType> iterator = iterable.iterator();
+		Assert.assertEquals("hello", iterator.next().element);
+		Assert.assertEquals("world", iterator.next().element);
+		Assert.assertFalse(iterator.hasNext());
+	}
+
 	@Test
 	public void testReadSampleTypeListWithNullValues() throws Exception {
 		JsonXMLArrayProvider provider = new JsonXMLArrayProvider(null);
@@ -242,6 +260,80 @@ public class JsonXMLArrayProviderTest {
 		Assert.assertEquals(json, writer.toString());
 	}
 
+	@Test
+	public void testWriteSampleTypeIterable() throws Exception {
+		JsonXMLArrayProvider provider = new JsonXMLArrayProvider(null);
+		Annotation[] annotations = new Annotation[]{JsonXMLDefault.class.getAnnotation(JsonXML.class)};
+		Type type = getClass().getDeclaredField("sampleTypeIterable").getGenericType();
+
+		final List<SampleType> list = new ArrayList<SampleType>();
+		list.add(new SampleType());
+		list.get(0).element = "hello";
+		Iterable<SampleType> iterable = new Iterable<SampleType>() {
+			@Override
+			public Iterator<SampleType> iterator() {
+				return list.iterator();
+			}
+		};
+
+		StringWriter writer = new StringWriter();
+		provider.write(Iterable.class,
+				type, annotations, MediaType.APPLICATION_JSON_TYPE, null, writer, iterable);
+
+		Assert.assertEquals("[{\"sampleType\":{\"element\":\"hello\"}}]", writer.toString());
+	}
+
+	/**
+	 * Iterables, which can only be iterated once, are written as they are iterated.
+	 */
+	@Test
+	public void testWriteSampleTypeIterableOnce() throws Exception {
+		JsonXMLArrayProvider provider = new JsonXMLArrayProvider(null);
+		Annotation[] annotations = new Annotation[]{JsonXMLDefault.class.getAnnotation(JsonXML.class)};
+		Type type = getClass().getDeclaredField("sampleTypeIterable").getGenericType();
+
+		final List<SampleType> list = new ArrayList<SampleType>();
+		list.add(new SampleType());
+		list.get(0).element = "hello";
+		list.add(new SampleType());
+		list.get(1).element = "world";
+		final StringWriter writer = new StringWriter();
+		Iterable<SampleType> iterable = new Iterable<SampleType>() {
+			boolean iterated;
+			@Override
+			public Iterator<SampleType> iterator() {
+				Assert.assertFalse("iterated twice", iterated);
+				iterated = true;
+				final Iterator<SampleType> iterator = list.iterator();
+				return new Iterator<SampleType>() {
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+					@Override
+					public SampleType next() {
+						SampleType next = iterator.next();
+						if (next.element.equals("world")) { // previous element has been written
+							Assert.assertTrue(writer.toString().contains("hello"));
+						}
+						return next;
+					}
+					@Override
+					public void remove() {
+						throw new UnsupportedOperationException();
+					}
+				};
+			}
+		};
+
+
+		provider.write(Iterable.class,
+				type, annotations, MediaType.APPLICATION_JSON_TYPE, null, writer, iterable);
+
+		String json = "[{\"sampleType\":{\"element\":\"hello\"}},{\"sampleType\":{\"element\":\"world\"}}]";
+		Assert.assertEquals(json, writer.toString());
+	}
+
 	@Test
 	public void testWriteEmptyList() throws Exception {
 		JsonXMLArrayProvider provider = new JsonXMLArrayProvider(null);
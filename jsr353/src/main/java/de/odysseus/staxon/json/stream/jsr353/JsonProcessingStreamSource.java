@@ -159,6 +159,122 @@ public class JsonProcessingStreamSource implements JsonStreamSource {
 		}
 	}
 
+	@Override
+	public ValueType peekValueType() throws IOException {
+		Event event = peekEvent();
+		if (toToken(event) != JsonStreamToken.VALUE) {
+			throw new IOException("Not a value token: " + peek());
+		}
+		switch (event) {
+		case VALUE_STRING:
+			return ValueType.STRING;
+		case VALUE_NUMBER:
+			return ValueType.NUMBER;
+		case VALUE_TRUE:
+		case VALUE_FALSE:
+			return ValueType.BOOLEAN;
+		default:
+			return ValueType.NULL;
+		}
+	}
+
+	@Override
+	public String stringValue() throws IOException {
+		switch (consume(JsonStreamToken.VALUE)) {
+		case VALUE_TRUE:
+			return "true";
+		case VALUE_FALSE:
+			return "false";
+		case VALUE_NULL:
+			return null;
+		default:
+			return parser.getString();
+		}
+	}
+
+	private void number() throws IOException {
+		Event event = consume(JsonStreamToken.VALUE);
+		if (event != Event.VALUE_NUMBER) {
+			throw new IOException("Not a number: " + event);
+		}
+	}
+
+	@Override
+	public long longValue() throws IOException {
+		number();
+		if (parser.isIntegralNumber() && parser.getString().length() < 19) {
+			return parser.getLong();
+		}
+		try {
+			return new Value(parser.getString(), parser.isIntegralNumber()).longValue();
+		} catch (NumberFormatException e) {
+			throw new IOException(e.getMessage());
+		}
+	}
+
+	@Override
+	public double doubleValue() throws IOException {
+		number();
+		return parser.getBigDecimal().doubleValue();
+	}
+
+	@Override
+	public boolean booleanValue() throws IOException {
+		Event event = consume(JsonStreamToken.VALUE);
+		switch (event) {
+		case VALUE_TRUE:
+			return true;
+		case VALUE_FALSE:
+			return false;
+		default:
+			throw new IOException("Not a boolean: " + event);
+		}
+	}
+
+	@Override
+	public void nullValue() throws IOException {
+		Event event = consume(JsonStreamToken.VALUE);
+		if (event != Event.VALUE_NULL) {
+			throw new IOException("Not null: " + event);
+		}
+	}
+
+	@Override
+	public void skipValue() throws IOException {
+		JsonStreamToken token = peek();
+		switch (token) {
+		case VALUE:
+			consume(token);
+			break;
+		case START_OBJECT:
+		case START_ARRAY:
+			consume(token);
+			int depth = 1;
+			while (depth > 0) {
+				Event event = peekEvent();
+				if (event == null) {
+					throw new IOException("Premature EOF");
+				}
+				switch (event) {
+				case START_OBJECT:
+				case START_ARRAY:
+					depth++;
+					break;
+				case END_OBJECT:
+				case END_ARRAY:
+					depth--;
+					break;
+				default:
+					break;
+				}
+				peekEvent = null;
+			}
+			break;
+		default:
+			throw new IOException("Not a value token: " + token);
+		}
+	}
+
 	@Override
 	public void startObject() throws IOException {
 		consume(JsonStreamToken.START_OBJECT);
@@ -30,6 +30,7 @@ import de.odysseus.staxon.json.stream.JsonStreamTarget;
 public class JsonProcessingStreamTarget implements JsonStreamTarget {
 	private final JsonGenerator generator;
 	private String name;
+	private StringBuilder chunks;
 
 	public JsonProcessingStreamTarget(JsonGenerator generator) {
 		this.generator = generator;
@@ -69,8 +70,23 @@ public class JsonProcessingStreamTarget implements JsonStreamTarget {
 		this.name = name;
 	}
 
+	/**
+	 * Collect chunks, the string is written on completion.
+	 */
+	@Override
+	public void stringChunk(String chunk) throws IOException {
+		if (chunks == null) {
+			chunks = new StringBuilder();
+		}
+		chunks.append(chunk);
+	}
+
 	@Override
 	public void value(Object value) throws IOException {
+		if (chunks != null) {
+			value = chunks.append(value).toString();
+			chunks = null;
+		}
 		try {
 			if (name != null) {
 				if (value == null) {